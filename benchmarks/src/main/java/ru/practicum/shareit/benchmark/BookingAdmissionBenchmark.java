@@ -0,0 +1,109 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.InputBookingDto;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bookings per second through BookingService on H2, each one added and approved by the owner. With
+ * {@code contended} all threads book the same item and queue on its row lock, otherwise every thread books its
+ * own item. The periods never overlap, so every booking is admitted. The threads only queue when they run in
+ * parallel, so the two modes are comparable on a machine with at least four cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class BookingAdmissionBenchmark {
+    @Param({"false", "true"})
+    private boolean contended;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private UserRepository userRepository;
+    private ItemRepository itemRepository;
+    private User owner;
+    private long sharedItemId;
+    private LocalDateTime base;
+    private final AtomicLong slots = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Booker {
+        private long bookerId;
+        private long itemId;
+
+        @Setup
+        public void setUp(BookingAdmissionBenchmark benchmark) {
+            bookerId = benchmark.userRepository.save(User.builder()
+                    .name("booker")
+                    .email("booker-" + Thread.currentThread().getId() + "@bench")
+                    .build()).getId();
+            itemId = benchmark.contended ? benchmark.sharedItemId : benchmark.addItem();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .run("--logging.level.root=WARN", "--shareit.booking.expiry.interval-ms=3600000");
+        bookingService = context.getBean(BookingService.class);
+        userRepository = context.getBean(UserRepository.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        owner = userRepository.save(User.builder().name("owner").email("owner@bench").build());
+        sharedItemId = addItem();
+        base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OutputBookingDto bookAndApprove(Booker booker) {
+        LocalDateTime start = base.plusHours(2 * slots.getAndIncrement());
+        OutputBookingDto booking = bookingService.addBooking(
+                new InputBookingDto(booker.itemId, start, start.plusHours(1)), booker.bookerId);
+        return bookingService.approveBooking(booking.getId(), owner.getId(), true);
+    }
+
+    private long addItem() {
+        return itemRepository.save(Item.builder()
+                .name("Дрель")
+                .description("Мощная дрель")
+                .available(true)
+                .owner(owner)
+                .build()).getId();
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingFilter;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of GET /bookings and GET /bookings/owner per state through BookingService on H2, so every state
+ * is measured with the query the specifications build for it. The bookings are spread over the past and the
+ * future and over all statuses; {@code filtered} adds the item and period filters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingStatesBenchmark {
+    private static final int SIZE = 20;
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED", "EXPIRED"})
+    private String state;
+
+    @Param({"false", "true"})
+    private boolean filtered;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private long ownerId;
+    private long bookerId;
+    private BookingFilter filter;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .run("--logging.level.root=WARN", "--shareit.booking.expiry.interval-ms=3600000");
+        bookingService = context.getBean(BookingService.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(User.builder().name("owner").email("owner@bench").build());
+        User booker = userRepository.save(User.builder().name("booker").email("booker@bench").build());
+        ownerId = owner.getId();
+        bookerId = booker.getId();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(Item.builder().name("Дрель " + i).description("Мощная дрель").available(true).owner(owner)
+                    .build());
+        }
+        items = context.getBean(ItemRepository.class).saveAll(items);
+        List<Booking> bookings = new ArrayList<>();
+        LocalDateTime first = LocalDateTime.now().minusDays(5000);
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime start = first.plusDays(i);
+            bookings.add(Booking.builder().item(items.get(i % items.size())).booker(booker)
+                    .start(start).end(start.plusDays(i % 3 + 1)).status(STATUSES[i % STATUSES.length])
+                    .build());
+        }
+        context.getBean(BookingRepository.class).saveAll(bookings);
+        LocalDateTime now = LocalDateTime.now();
+        filter = filtered
+                ? new BookingFilter(items.get(0).getId(), now.minusYears(5), now.plusYears(5))
+                : new BookingFilter(null, null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OutputBookingDto> bookingsOfBooker() {
+        return bookingService.getBookingsOfBooker(state, bookerId, filter, 0, SIZE, null);
+    }
+
+    @Benchmark
+    public List<OutputBookingDto> bookingsOfOwner() {
+        return bookingService.getBookingsOfOwner(state, ownerId, filter, 0, SIZE, null);
+    }
+}
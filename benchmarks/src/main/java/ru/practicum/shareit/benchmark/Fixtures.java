@@ -0,0 +1,116 @@
+package ru.practicum.shareit.benchmark;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detached entity graphs shaped like the rows the repositories return, and the services under test built on
+ * repository stubs.
+ */
+final class Fixtures {
+    static final long OWNER_ID = 1L;
+    static final long BOOKER_ID = 2L;
+    static final User OWNER = User.builder().id(OWNER_ID).name("owner").email("owner@mail.ru").build();
+    static final User BOOKER = User.builder().id(BOOKER_ID).name("booker").email("booker@mail.ru").build();
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private Fixtures() {
+    }
+
+    /**
+     * The collaborators the in-memory benchmarks never reach (entity manager, export writer, summaries, cache
+     * eviction) are left null; the constructor is called only here, so a new one is added in one place.
+     */
+    static ItemService itemService(ItemRepository itemRepository, UserRepository userRepository,
+                                   CommentRepository commentRepository, BookingRepository bookingRepository,
+                                   ItemRequestRepository itemRequestRepository) {
+        return new ItemServiceImpl(itemRepository, userRepository, commentRepository, bookingRepository,
+                itemRequestRepository, null, null, null, null);
+    }
+
+    static ItemRequestService itemRequestService(ItemRequestRepository itemRequestRepository,
+                                                 UserRepository userRepository, ItemRepository itemRepository) {
+        return new ItemRequestServiceImpl(itemRequestRepository, userRepository, itemRepository);
+    }
+
+    static List<Item> items(int count, ItemRequest request) {
+        List<Item> items = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            items.add(Item.builder()
+                    .id(i)
+                    .name("item " + i)
+                    .description("description of item " + i)
+                    .available(true)
+                    .owner(OWNER)
+                    .request(request)
+                    .build());
+        }
+        return items;
+    }
+
+    static List<Booking> bookings(List<Item> items, int perItem, long hoursShift) {
+        List<Booking> bookings = new ArrayList<>(items.size() * perItem);
+        long id = 1;
+        for (Item item : items) {
+            for (int i = 0; i < perItem; i++) {
+                LocalDateTime start = NOW.plusHours(hoursShift + i * 48L);
+                bookings.add(Booking.builder()
+                        .id(id++)
+                        .start(start)
+                        .end(start.plusHours(24))
+                        .item(item)
+                        .booker(BOOKER)
+                        .status(BookingStatus.APPROVED)
+                        .build());
+            }
+        }
+        return bookings;
+    }
+
+    static List<Comment> comments(List<Item> items, int perItem) {
+        List<Comment> comments = new ArrayList<>(items.size() * perItem);
+        long id = 1;
+        for (Item item : items) {
+            for (int i = 0; i < perItem; i++) {
+                comments.add(Comment.builder()
+                        .id(id++)
+                        .text("comment " + i)
+                        .item(item)
+                        .author(BOOKER)
+                        .created(NOW.minusDays(i))
+                        .build());
+            }
+        }
+        return comments;
+    }
+
+    static List<ItemRequest> requests(int count) {
+        List<ItemRequest> requests = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            requests.add(ItemRequest.builder()
+                    .id(i)
+                    .description("request " + i)
+                    .requestor(BOOKER)
+                    .created(NOW.minusMinutes(i))
+                    .build());
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the gateway does with one server answer of {@code size} bookings. {@code objectRoundTrip} is the former
+ * relay: the body was read into {@code Object} (maps and lists) and written again by Spring MVC.
+ * {@code byteRelay} is the current one: the body is gathered into one {@code byte[]}, as
+ * {@code toEntity(byte[].class)} does, and written out unchanged. Compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GatewayRelayBenchmark {
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+    private final OutputStream client = OutputStream.nullOutputStream();
+    private byte[] serverAnswer;
+
+    @Setup
+    public void setUp() throws IOException {
+        serverAnswer = mapper.writeValueAsBytes(BookingMapper.toBookingDtoRequestsList(
+                Fixtures.bookings(Fixtures.items(size, null), 1, 1)));
+    }
+
+    @Benchmark
+    public Object objectRoundTrip() throws IOException {
+        Object body = mapper.readValue(serverAnswer, Object.class);
+        mapper.writeValue(client, body);
+        return body;
+    }
+
+    @Benchmark
+    public byte[] byteRelay() throws IOException {
+        byte[] body = Arrays.copyOf(serverAnswer, serverAnswer.length);
+        client.write(body);
+        return body;
+    }
+}
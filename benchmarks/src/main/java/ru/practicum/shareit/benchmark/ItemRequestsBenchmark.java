@@ -0,0 +1,68 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Grouping of answer items by request in ItemRequestServiceImpl.itemRequestsToDto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemRequestsBenchmark {
+    @Param({"10", "100", "1000"})
+    private int requests;
+
+    @Param({"1", "10"})
+    private int itemsPerRequest;
+
+    private ItemRequestService itemRequestService;
+
+    @Setup
+    public void setUp() {
+        List<ItemRequest> itemRequests = Fixtures.requests(requests);
+        List<ItemDto> answers = new ArrayList<>(requests * itemsPerRequest);
+        for (ItemRequest request : itemRequests) {
+            answers.addAll(ItemMapper.toItemDtoList(Fixtures.items(itemsPerRequest, request)));
+        }
+        List<ItemRequestDto> requestDtos = itemRequests.stream()
+                .map(ItemRequestMapper::toItemRequestDto)
+                .collect(Collectors.toList());
+        itemRequestService = Fixtures.itemRequestService(
+                RepositoryStub.of(ItemRequestRepository.class, Map.of("findAllByRequestorIdNot", args -> requestDtos)),
+                RepositoryStub.of(UserRepository.class, Map.of("existsUserById", args -> true)),
+                RepositoryStub.of(ItemRepository.class, Map.of("findAllByRequestIdIn", args -> answers)));
+    }
+
+    @Benchmark
+    public List<ItemRequestDto> getOtherUserRequests() {
+        return itemRequestService.getOtherUserRequests(Fixtures.OWNER_ID, 0, requests, null);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory part of ItemServiceImpl.getAllItems: last/next booking and comment indexes plus DTO assembly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OwnerItemsBenchmark {
+    @Param({"10", "100", "1000"})
+    private int items;
+
+    @Param({"0", "10"})
+    private int commentsPerItem;
+
+    private ItemService itemService;
+
+    @Setup
+    public void setUp() {
+        List<Item> ownerItems = Fixtures.items(items, null);
+        List<Booking> lastBookings = Fixtures.bookings(ownerItems, 1, -48);
+        List<Booking> nextBookings = Fixtures.bookings(ownerItems, 1, 48);
+        List<Comment> comments = Fixtures.comments(ownerItems, commentsPerItem);
+        itemService = Fixtures.itemService(
+                RepositoryStub.of(ItemRepository.class, Map.of("findAllByOwnerId", args -> ownerItems)),
+                RepositoryStub.of(UserRepository.class, Map.of("existsUserById", args -> true)),
+                RepositoryStub.of(CommentRepository.class, Map.of("findAllByItemIdIn", args -> comments)),
+                RepositoryStub.of(BookingRepository.class, Map.of(
+                        "findLastBookingsOfItems", args -> lastBookings,
+                        "findNextBookingsOfItems", args -> nextBookings)),
+                RepositoryStub.of(ItemRequestRepository.class, Map.of()));
+    }
+
+    @Benchmark
+    public List<ItemDto> getAllItems() {
+        return itemService.getAllItems(Fixtures.OWNER_ID, 0, items, null);
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingFilter;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Page {@code page} of GET /bookings for a booker with SIZE * 10,000 bookings, once with from/size, which becomes
+ * OFFSET, and once with the cursor of the previous page's last row. With {@code -p database=postgres} the server's
+ * default data source is used instead of H2; the rows added there are deleted afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginationBenchmark {
+    private static final int SIZE = 20;
+    private static final int PAGES = 10_000;
+    private static final long FIRST_ID = 900_000_000L;
+    // H2 would otherwise answer a repeated query on unchanged tables from the previous result
+    private static final String H2_URL = "jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE";
+    private static final BookingFilter NO_FILTER = new BookingFilter(null, null, null);
+
+    @Param({"1", "10000"})
+    private int page;
+
+    @Param({"h2"})
+    private String database;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private long ownerId;
+    private long itemId;
+    private BookingService bookingService;
+    private long bookerId;
+    private Cursor after;
+
+    @Setup
+    public void setUp() {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE);
+        List<String> args = new ArrayList<>(List.of("--logging.level.root=WARN", "--spring.jpa.show-sql=false",
+                "--shareit.booking.expiry.interval-ms=3600000", "--shareit.booking.partitions.enabled=false"));
+        if ("h2".equals(database)) {
+            application.profiles("h2");
+            args.add("--spring.datasource.url=" + H2_URL);
+        }
+        context = application.run(args.toArray(String[]::new));
+        bookingService = context.getBean(BookingService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        String suffix = System.nanoTime() + "@bench";
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(User.builder().name("owner").email("owner-" + suffix).build());
+        ownerId = owner.getId();
+        bookerId = userRepository.save(User.builder().name("booker").email("booker-" + suffix).build()).getId();
+        itemId = context.getBean(ItemRepository.class).save(Item.builder().name("Дрель")
+                .description("Мощная дрель").available(true).owner(owner).build()).getId();
+
+        LocalDateTime first = LocalDateTime.now().minusYears(1);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < SIZE * PAGES; i++) {
+            LocalDateTime start = first.plusMinutes(i);
+            rows.add(new Object[]{FIRST_ID + i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)),
+                    itemId, bookerId, "APPROVED"});
+            if (rows.size() == 10_000) {
+                insert(rows);
+                rows.clear();
+            }
+        }
+        insert(rows);
+        jdbcTemplate.execute("analyze");
+
+        if (page > 1) {
+            OutputBookingDto last = bookingService.getBookingsOfBooker("ALL", bookerId, NO_FILTER,
+                    (page - 1) * SIZE - 1, 1, null).get(0);
+            after = Cursor.of(last.getStart(), last.getId());
+        }
+        if (!ids(offset()).equals(ids(keyset()))) {
+            throw new IllegalStateException("страницы по смещению и по курсору не совпадают");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.update("delete from BOOKINGS where BOOKER_ID = ?", bookerId);
+        jdbcTemplate.update("delete from ITEMS where ID = ?", itemId);
+        jdbcTemplate.update("delete from USERS where ID in (?, ?)", ownerId, bookerId);
+        context.close();
+    }
+
+    @Benchmark
+    public List<OutputBookingDto> offset() {
+        return bookingService.getBookingsOfBooker("ALL", bookerId, NO_FILTER, (page - 1) * SIZE, SIZE, null);
+    }
+
+    @Benchmark
+    public List<OutputBookingDto> keyset() {
+        return bookingService.getBookingsOfBooker("ALL", bookerId, NO_FILTER, 0, SIZE, after);
+    }
+
+    private static List<Long> ids(List<OutputBookingDto> bookings) {
+        return bookings.stream().map(OutputBookingDto::getId).collect(Collectors.toList());
+    }
+
+    private void insert(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into BOOKINGS (ID, START_BOOKING, END_BOOKING, ITEM_ID, BOOKER_ID, STATUS) "
+                + "values (?, ?, ?, ?, ?, ?)", rows);
+    }
+}
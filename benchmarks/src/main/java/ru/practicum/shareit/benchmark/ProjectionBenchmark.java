@@ -0,0 +1,134 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths against the server context on H2: managed entities mapped to DTOs versus the constructor
+ * expressions of the repositories. Run with {@code -prof gc} and compare gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final String BOOKINGS_OF_BOOKER = "select b from Booking b join fetch b.item join fetch b.booker " +
+            " where b.booker.id = :bookerId order by b.start desc, b.id desc";
+    private static final String SEARCH = "select i from Item i " +
+            " where (lower(i.name) like lower(concat('%', :text, '%')) " +
+            " or lower(i.description) like lower(concat('%', :text, '%'))) and i.available = true " +
+            " order by case when lower(i.name) like lower(concat('%', :text, '%')) then 0 else 1 end, i.id";
+
+    @Param({"10", "100"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private EntityManager entityManager;
+    private BookingRepository bookingRepository;
+    private ItemRepository itemRepository;
+    private long bookerId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .run("--logging.level.root=WARN");
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        entityManager = context.getBean(EntityManager.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        itemRepository = context.getBean(ItemRepository.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(User.builder().name("owner").email("owner@bench").build());
+        User booker = userRepository.save(User.builder().name("booker").email("booker@bench").build());
+        bookerId = booker.getId();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(Item.builder().name("Дрель " + i).description("Мощная дрель").available(true).owner(owner)
+                    .build());
+        }
+        items = itemRepository.saveAll(items);
+        List<Booking> bookings = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 1000; i++) {
+            bookings.add(Booking.builder().item(items.get(i % items.size())).booker(booker)
+                    .start(start.plusDays(i)).end(start.plusDays(i).plusHours(1)).status(BookingStatus.WAITING)
+                    .build());
+        }
+        bookingRepository.saveAll(bookings);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OutputBookingDto> bookingsOfBookerEntities() {
+        return readOnly.execute(status -> BookingMapper.toBookingDtoRequestsList(
+                entityManager.createQuery(BOOKINGS_OF_BOOKER, Booking.class)
+                        .setParameter("bookerId", bookerId)
+                        .setMaxResults(size)
+                        .getResultList()));
+    }
+
+    @Benchmark
+    public List<OutputBookingDto> bookingsOfBookerProjection() {
+        return readOnly.execute(status -> bookingRepository.findPage(
+                BookingSpecifications.ofBooker(bookerId), 0, size));
+    }
+
+    @Benchmark
+    public List<ItemDto> searchEntities() {
+        return readOnly.execute(status -> ItemMapper.toItemDtoList(
+                entityManager.createQuery(SEARCH, Item.class)
+                        .setParameter("text", "дрель")
+                        .setMaxResults(size)
+                        .getResultList()));
+    }
+
+    @Benchmark
+    public List<ItemDto> searchProjection() {
+        return readOnly.execute(status -> itemRepository.searchAvailableItems("дрель", PageRequest.of(0, size)));
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Repository double answering only the methods a benchmark calls; anything else fails loudly.
+ * A plain proxy keeps the per-call overhead far below that of a mocking framework.
+ */
+final class RepositoryStub {
+    private RepositoryStub() {
+    }
+
+    static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return type.getSimpleName() + " stub";
+                        default:
+                            throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                    }
+                }));
+    }
+}
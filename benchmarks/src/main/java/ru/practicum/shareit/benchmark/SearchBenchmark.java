@@ -0,0 +1,115 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Page {@code page} of GET /items/search over ITEMS rows, once with from/size and once with the cursor of the
+ * previous page's last row, with the trigram indexes of the search ({@code index=trgm}) and without them
+ * ({@code index=none}). PostgreSQL only: the server's default data source is used, the indexes are dropped for
+ * {@code none} and created again afterwards, so it must be a database of its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final String TEXT = "дрель";
+    private static final int SIZE = 20;
+    private static final int ITEMS = 200_000;
+    private static final long FIRST_ID = 900_000_000L;
+    private static final String CREATE_INDEXES = "CREATE INDEX IF NOT EXISTS ITEMS_NAME_TRGM_IDX ON ITEMS "
+            + " USING GIN (lower(NAME) gin_trgm_ops) WHERE IS_AVAILABLE; "
+            + "CREATE INDEX IF NOT EXISTS ITEMS_DESCRIPTION_TRGM_IDX ON ITEMS "
+            + " USING GIN (lower(DESCRIPTION) gin_trgm_ops) WHERE IS_AVAILABLE";
+
+    // one item in a hundred has the text in its name and one in its description: 200 pages of matches
+    @Param({"1", "200"})
+    private int page;
+
+    @Param({"trgm", "none"})
+    private String index;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private ItemService itemService;
+    private long ownerId;
+    private Cursor after;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN", "--spring.jpa.show-sql=false",
+                        "--shareit.booking.expiry.interval-ms=3600000", "--shareit.booking.partitions.enabled=false");
+        itemService = context.getBean(ItemService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        ownerId = jdbcTemplate.queryForObject("insert into USERS (NAME, EMAIL) values ('owner', ?) returning ID",
+                Long.class, "owner-" + System.nanoTime() + "@bench");
+        jdbcTemplate.update("insert into ITEMS (ID, NAME, DESCRIPTION, IS_AVAILABLE, OWNER_ID) "
+                + " select ? + g, case when g % 100 = 0 then 'Дрель ' || g else 'вещь ' || md5(g::text) end, "
+                + " case when g % 100 = 50 then 'почти дрель ' || g else 'описание ' || md5(g::text) end, "
+                + " true, ? from generate_series(1, ?) g", FIRST_ID, ownerId, ITEMS);
+        if ("none".equals(index)) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS ITEMS_NAME_TRGM_IDX; "
+                    + "DROP INDEX IF EXISTS ITEMS_DESCRIPTION_TRGM_IDX");
+        }
+        jdbcTemplate.execute("vacuum analyze ITEMS");
+
+        if (page > 1) {
+            ItemDto last = itemService.getItemByText(TEXT, (page - 1) * SIZE - 1, 1, null).get(0);
+            after = Cursor.of(last.getName().toLowerCase(Locale.ROOT).contains(TEXT) ? "0" : "1", last.getId());
+        }
+        if (offset().size() != SIZE || !ids(offset()).equals(ids(keyset()))) {
+            throw new IllegalStateException("страницы по смещению и по курсору не совпадают");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.update("delete from ITEMS where OWNER_ID = ?", ownerId);
+        jdbcTemplate.update("delete from USERS where ID = ?", ownerId);
+        jdbcTemplate.execute(CREATE_INDEXES);
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> offset() {
+        return itemService.getItemByText(TEXT, (page - 1) * SIZE, SIZE, null);
+    }
+
+    @Benchmark
+    public List<ItemDto> keyset() {
+        return itemService.getItemByText(TEXT, 0, SIZE, after);
+    }
+
+    private static List<Long> ids(List<ItemDto> items) {
+        return items.stream().map(ItemDto::getId).collect(Collectors.toList());
+    }
+}
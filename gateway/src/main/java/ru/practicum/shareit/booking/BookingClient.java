@@ -5,12 +5,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingPostRequestDto;
 import ru.practicum.shareit.client.BaseClient;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,43 +25,94 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder webClientBuilder,
+                         ReactorClientHttpConnector connector, RestTemplateBuilder builder,
+                         HttpComponentsClientHttpRequestFactory requestFactory) {
         super(
+                webClientBuilder
+                        .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .clientConnector(connector)
+                        .build(),
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .requestFactory(() -> requestFactory)
                         .build()
         );
     }
 
-    public ResponseEntity<Object> createBooking(long userId, BookingPostRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> createBooking(long userId, BookingPostRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> approveBooking(long bookingId, long ownerId, boolean approved) {
+    public Mono<ResponseEntity<Object>> createBookings(long userId, List<BookingPostRequestDto> requestDtos) {
+        return post("/batch", userId, requestDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> approveBooking(long bookingId, long ownerId, boolean approved) {
         return patch("/" + bookingId + "?approved=" + approved, ownerId);
     }
 
-    public ResponseEntity<Object> getBooking(long userId, long bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(long userId, long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getBookingsOfBooker(long bookerId, String state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getBookingsOfBooker(long bookerId, String state, int from, int size,
+                                                            String after, Long itemId, LocalDateTime rangeStart,
+                                                            LocalDateTime rangeEnd) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state,
                 "from", from,
                 "size", size
-        );
-
-        return get("?state={state}&from={from}&size={size}", bookerId, parameters);
+        ));
+        String path = withFilters("?state={state}&from={from}&size={size}", parameters, itemId, rangeStart,
+                rangeEnd);
+        return get(withCursor(path, parameters, after), bookerId, parameters);
     }
 
-    public ResponseEntity<Object> getBookingsOfOwner(long ownerId, String state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getBookingsOfOwner(long ownerId, String state, int from, int size,
+                                                           String after, Long itemId, LocalDateTime rangeStart,
+                                                           LocalDateTime rangeEnd) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state,
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
+        ));
+        String path = withFilters("/owner?state={state}&from={from}&size={size}", parameters, itemId, rangeStart,
+                rangeEnd);
+        return get(withCursor(path, parameters, after), ownerId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getSummaryOfBooker(long bookerId) {
+        return get("/summary", bookerId);
+    }
+
+    public Mono<ResponseEntity<Object>> getSummaryOfOwner(long ownerId) {
+        return get("/owner/summary", ownerId);
+    }
+
+    public void exportBookingsOfBooker(long bookerId, String format, HttpServletResponse response) throws IOException {
+        getStream("/export?format={format}", bookerId, Map.of("format", format), response);
+    }
+
+    public void exportBookingsOfOwner(long ownerId, String format, HttpServletResponse response) throws IOException {
+        getStream("/owner/export?format={format}", ownerId, Map.of("format", format), response);
+    }
+
+    private static String withFilters(String path, Map<String, Object> parameters, Long itemId,
+                                      LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        StringBuilder filtered = new StringBuilder(path);
+        if (itemId != null) {
+            parameters.put("itemId", itemId);
+            filtered.append("&itemId={itemId}");
+        }
+        if (rangeStart != null) {
+            parameters.put("rangeStart", rangeStart);
+            filtered.append("&rangeStart={rangeStart}");
+        }
+        if (rangeEnd != null) {
+            parameters.put("rangeEnd", rangeEnd);
+            filtered.append("&rangeEnd={rangeEnd}");
+        }
+        return filtered.toString();
     }
-}
\ No newline at end of file
+}
@@ -4,13 +4,24 @@ import lombok.RequiredArgsConstructor;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingPostRequestDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -20,45 +31,95 @@ import javax.validation.constraints.PositiveOrZero;
 public class BookingController {
     private final BookingClient bookingClient;
     private static final String userIdInHeader = "X-Sharer-User-Id";
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_PAGE_SIZE = 1_000;
 
     @PostMapping
-    public ResponseEntity<Object> createBooking(@RequestHeader(userIdInHeader) @Positive long userId,
-                                                @RequestBody @Valid BookingPostRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> createBooking(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                      @RequestBody @Valid BookingPostRequestDto requestDto) {
         return bookingClient.createBooking(userId, requestDto);
     }
 
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> createBookings(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                       @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                       List<@Valid @NotNull BookingPostRequestDto> requestDtos) {
+        return bookingClient.createBookings(userId, requestDtos);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approveBooking(@RequestHeader(userIdInHeader) @Positive long ownerId,
-                                                 @PathVariable @Positive long bookingId,
-                                                 @RequestParam(value = "approved", required = false) boolean approved) {
+    public Mono<ResponseEntity<Object>> approveBooking(@RequestHeader(userIdInHeader) @Positive long ownerId,
+                                                       @PathVariable @Positive long bookingId,
+                                                       @RequestParam(value = "approved", required = false)
+                                                       boolean approved) {
         return bookingClient.approveBooking(bookingId, ownerId, approved);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader(userIdInHeader) @Positive long userId,
-                                             @PathVariable @Positive long bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                   @PathVariable @Positive long bookingId) {
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getBookingsOfBooker(@RequestHeader(userIdInHeader) long bookerId,
-                                                      @RequestParam(value = "state", defaultValue = "ALL")
-                                                      String state,
-                                                      @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero
-                                                      int from,
-                                                      @RequestParam(name = "size", defaultValue = "10") @Positive
-                                                      int size) {
-        return bookingClient.getBookingsOfBooker(bookerId, state, from, size);
+    public Mono<ResponseEntity<Object>> getBookingsOfBooker(@RequestHeader(userIdInHeader) long bookerId,
+                                                            @RequestParam(value = "state", defaultValue = "ALL")
+                                                            String state,
+                                                            @RequestParam(name = "from", defaultValue = "0")
+                                                            @PositiveOrZero int from,
+                                                            @RequestParam(name = "size", defaultValue = "10")
+                                                            @Positive @Max(MAX_PAGE_SIZE) int size,
+                                                            @RequestParam(required = false) String after,
+                                                            @RequestParam(required = false) @Positive Long itemId,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = ISO.DATE_TIME)
+                                                            LocalDateTime rangeStart,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = ISO.DATE_TIME)
+                                                            LocalDateTime rangeEnd) {
+        return bookingClient.getBookingsOfBooker(bookerId, state, from, size, after, itemId, rangeStart, rangeEnd);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getBookingsOfOwner(@RequestHeader(userIdInHeader) long ownerId,
-                                                     @RequestParam(value = "state", defaultValue = "ALL")
-                                                     String state,
-                                                     @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
-                                                     int from,
-                                                     @Positive @RequestParam(name = "size", defaultValue = "10")
-                                                     int size) {
-        return bookingClient.getBookingsOfOwner(ownerId, state, from, size);
+    public Mono<ResponseEntity<Object>> getBookingsOfOwner(@RequestHeader(userIdInHeader) long ownerId,
+                                                           @RequestParam(value = "state", defaultValue = "ALL")
+                                                           String state,
+                                                           @PositiveOrZero
+                                                           @RequestParam(name = "from", defaultValue = "0") int from,
+                                                           @Positive @Max(MAX_PAGE_SIZE)
+                                                           @RequestParam(name = "size", defaultValue = "10") int size,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(required = false) @Positive Long itemId,
+                                                           @RequestParam(required = false)
+                                                           @DateTimeFormat(iso = ISO.DATE_TIME)
+                                                           LocalDateTime rangeStart,
+                                                           @RequestParam(required = false)
+                                                           @DateTimeFormat(iso = ISO.DATE_TIME)
+                                                           LocalDateTime rangeEnd) {
+        return bookingClient.getBookingsOfOwner(ownerId, state, from, size, after, itemId, rangeStart, rangeEnd);
+    }
+
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<Object>> getSummaryOfBooker(@RequestHeader(userIdInHeader) @Positive long bookerId) {
+        return bookingClient.getSummaryOfBooker(bookerId);
+    }
+
+    @GetMapping("/owner/summary")
+    public Mono<ResponseEntity<Object>> getSummaryOfOwner(@RequestHeader(userIdInHeader) @Positive long ownerId) {
+        return bookingClient.getSummaryOfOwner(ownerId);
+    }
+
+    @GetMapping("/export")
+    public void exportBookingsOfBooker(@RequestHeader(userIdInHeader) @Positive long bookerId,
+                                       @RequestParam(defaultValue = "ndjson") String format,
+                                       HttpServletResponse response) throws IOException {
+        bookingClient.exportBookingsOfBooker(bookerId, format, response);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsOfOwner(@RequestHeader(userIdInHeader) @Positive long ownerId,
+                                      @RequestParam(defaultValue = "ndjson") String format,
+                                      HttpServletResponse response) throws IOException {
+        bookingClient.exportBookingsOfOwner(ownerId, format, response);
     }
-}
\ No newline at end of file
+}
@@ -1,116 +1,252 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
-import org.springframework.http.HttpEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Ordinary calls are sent through {@code web} and return as soon as the request is on its way: the controller
+ * hands the {@link Mono} to Spring MVC, which releases the servlet thread until the server answers. Streaming
+ * uploads and downloads read from or write to the servlet streams, so they stay on the blocking {@code rest}.
+ */
+@Slf4j
 public class BaseClient {
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization");
+
+    protected final WebClient web;
     protected final RestTemplate rest;
+    protected final RestTemplate streamingRest;
+
+    public BaseClient(WebClient web) {
+        this(web, null, null);
+    }
 
-    public BaseClient(RestTemplate rest) {
+    public BaseClient(WebClient web, RestTemplate rest) {
+        this(web, rest, rest);
+    }
+
+    public BaseClient(WebClient web, RestTemplate rest, RestTemplate streamingRest) {
+        this.web = web;
         this.rest = rest;
+        this.streamingRest = streamingRest;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId,
+                                                    @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId,
+                                                   @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId,
+                                                     @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    /**
+     * Posts a body produced while the request is already being sent; {@code streamingRest} decides whether
+     * it reaches the server as it is written or is buffered first.
+     */
+    protected ResponseEntity<Object> postStream(String path, long userId, MediaType contentType,
+                                                StreamingHttpOutputMessage.Body body) {
+        ServerHop hop = ServerHop.start(getClass().getSimpleName(), HttpMethod.POST, path);
+        String status = "IO_ERROR";
+        try {
+            ResponseEntity<Object> relayed = streamingRest.execute(path, HttpMethod.POST, request -> {
+                request.getHeaders().putAll(defaultHeaders(userId, hop));
+                request.getHeaders().setContentType(contentType);
+                if (request instanceof StreamingHttpOutputMessage) {
+                    ((StreamingHttpOutputMessage) request).setBody(body);
+                } else {
+                    body.writeTo(request.getBody());
+                }
+            }, response -> prepareGatewayResponse(ResponseEntity.status(response.getRawStatusCode())
+                    .headers(response.getHeaders())
+                    .body(StreamUtils.copyToByteArray(response.getBody()))));
+            status = String.valueOf(relayed.getStatusCodeValue());
+            return relayed;
+        } catch (HttpStatusCodeException e) {
+            status = String.valueOf(e.getRawStatusCode());
+            return relayError(e);
+        } finally {
+            hop.finish(status);
+        }
+    }
+
+    /**
+     * Copies the server's response into {@code target} as it arrives instead of reading it into memory first,
+     * for downloads whose size is not bounded.
+     */
+    protected void getStream(String path, long userId, Map<String, Object> parameters, HttpServletResponse target)
+            throws IOException {
+        ServerHop hop = ServerHop.start(getClass().getSimpleName(), HttpMethod.GET, path);
+        HttpHeaders headers = defaultHeaders(userId, hop);
+        headers.setAccept(List.of(MediaType.ALL));
+        String status = "IO_ERROR";
+        try {
+            status = rest.execute(path, HttpMethod.GET, request -> request.getHeaders().putAll(headers), response -> {
+                target.setStatus(response.getRawStatusCode());
+                copyHeaders(passthroughHeaders(response.getHeaders()), target);
+                OutputStream out = target.getOutputStream();
+                StreamUtils.copy(response.getBody(), out);
+                out.flush();
+                return String.valueOf(response.getRawStatusCode());
+            }, parameters);
+        } catch (HttpStatusCodeException e) {
+            status = String.valueOf(e.getRawStatusCode());
+            target.setStatus(e.getRawStatusCode());
+            copyHeaders(passthroughHeaders(e.getResponseHeaders()), target);
+            target.getOutputStream().write(e.getResponseBodyAsByteArray());
+        } finally {
+            hop.finish(status);
+        }
+    }
+
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId,
+                                                  @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
-
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+    protected static String withCursor(String path, Map<String, Object> parameters, @Nullable String after) {
+        if (after == null) {
+            return path;
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        parameters.put("after", after);
+        return path + "&after={after}";
+    }
+
+    /**
+     * The hop is started here, on the request thread, so its span is a child of the gateway's server span;
+     * it is finished on whatever thread the server's answer arrives. The answer is held in memory whole, so it is
+     * bounded by {@code spring.codec.max-in-memory-size}; a larger one is not relayed but answered with 502.
+     */
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId,
+                                                                @Nullable Map<String, Object> parameters,
+                                                                @Nullable T body) {
+        ServerHop hop = ServerHop.start(getClass().getSimpleName(), method, path);
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(path, parameters == null ? Map.of() : parameters)
+                .headers(headers -> headers.addAll(defaultHeaders(userId, hop)));
+        WebClient.RequestHeadersSpec<?> exchange = body == null ? request : request.bodyValue(body);
+        return exchange.exchangeToMono(response -> response.toEntity(byte[].class))
+                .doOnNext(response -> hop.finish(String.valueOf(response.getStatusCodeValue())))
+                .doOnError(e -> hop.finish("IO_ERROR"))
+                .doOnCancel(() -> hop.finish("CANCELLED"))
+                .map(BaseClient::prepareGatewayResponse)
+                .onErrorResume(DataBufferLimitException.class, e -> {
+                    log.warn("Ответ сервера на {} {} превысил лимит буфера: {}", method, path, e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_GATEWAY).build());
+                });
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    private HttpHeaders defaultHeaders(Long userId, ServerHop hop) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (userId != null) {
             headers.set("X-Sharer-User-Id", String.valueOf(userId));
         }
+        hop.inject(headers);
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    /**
+     * The server's body is relayed as raw bytes, so only end-to-end headers are kept: connection management
+     * headers belong to the gateway-server hop and are set again by the gateway's own container.
+     */
+    private static HttpHeaders passthroughHeaders(@Nullable HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, values);
+                }
+            });
         }
+        return headers;
+    }
+
+    private static void copyHeaders(HttpHeaders headers, HttpServletResponse target) {
+        headers.forEach((name, values) -> values.forEach(value -> target.addHeader(name, value)));
+    }
+
+    private static ResponseEntity<Object> relayError(HttpStatusCodeException e) {
+        return ResponseEntity.status(e.getStatusCode())
+                .headers(passthroughHeaders(e.getResponseHeaders()))
+                .body(e.getResponseBodyAsByteArray());
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<byte[]> response) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCodeValue())
+                .headers(passthroughHeaders(response.getHeaders()));
 
         if (response.hasBody()) {
             return responseBuilder.body(response.getBody());
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.client;
+
+import io.netty.channel.ChannelOption;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One connection pool to the server shared by all clients instead of a default-sized pool per client.
+ * Ordinary calls go through the non-blocking Reactor Netty pool, so a request waiting for the server holds
+ * no thread; uploads and downloads of unbounded size stay on the blocking HttpClient pool. Both are sized by
+ * the same {@code shareit-server.pool} settings.
+ */
+@Configuration
+public class ClientConfig {
+    /**
+     * Time left after the longest call to the server for the error it ends with to reach the client.
+     */
+    private static final long ASYNC_TIMEOUT_MARGIN_MS = 5000;
+
+    /**
+     * Servlet requests answered with a {@code Mono} time out after {@code spring.mvc.async.request-timeout}, 30s
+     * in Tomcat by default. It is set above the longest call to the server, pool wait, connect and response
+     * included, so a slow call ends with the gateway's own error instead of the servlet timeout, and a longer
+     * {@code shareit-server.read-timeout-ms} raises it too. An explicit {@code spring.mvc.async.request-timeout}
+     * is left as it is.
+     */
+    @Bean
+    public WebMvcConfigurer shareitServerAsyncTimeout(
+            @Value("${spring.mvc.async.request-timeout:#{null}}") Duration requestTimeout,
+            @Value("${shareit-server.connect-timeout-ms}") long connectTimeoutMs,
+            @Value("${shareit-server.pool.acquire-timeout-ms}") long acquireTimeoutMs,
+            @Value("${shareit-server.read-timeout-ms}") long readTimeoutMs) {
+        long timeoutMs = requestTimeout != null ? requestTimeout.toMillis()
+                : acquireTimeoutMs + connectTimeoutMs + readTimeoutMs + ASYNC_TIMEOUT_MARGIN_MS;
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setDefaultTimeout(timeoutMs);
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider shareitServerConnectionProvider(
+            @Value("${shareit-server.pool.max-per-route}") int maxPerRoute,
+            @Value("${shareit-server.pool.acquire-timeout-ms}") long acquireTimeoutMs,
+            @Value("${shareit-server.pool.idle-timeout-ms}") long idleTimeoutMs) {
+        return ConnectionProvider.builder("shareit-server")
+                .maxConnections(maxPerRoute)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMillis(acquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(idleTimeoutMs))
+                .evictInBackground(Duration.ofMillis(idleTimeoutMs))
+                .build();
+    }
+
+    @Bean
+    public ReactorClientHttpConnector shareitServerConnector(
+            ConnectionProvider shareitServerConnectionProvider,
+            @Value("${shareit-server.connect-timeout-ms}") int connectTimeoutMs,
+            @Value("${shareit-server.read-timeout-ms}") long readTimeoutMs) {
+        return new ReactorClientHttpConnector(reactor.netty.http.client.HttpClient.create(
+                        shareitServerConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs)));
+    }
+
+    @Bean
+    public HttpClient shareitServerHttpClient(
+            @Value("${shareit-server.pool.max-total}") int maxTotal,
+            @Value("${shareit-server.pool.max-per-route}") int maxPerRoute,
+            @Value("${shareit-server.pool.idle-timeout-ms}") long idleTimeoutMs) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public HttpComponentsClientHttpRequestFactory shareitServerRequestFactory(
+            HttpClient shareitServerHttpClient,
+            @Value("${shareit-server.connect-timeout-ms}") int connectTimeoutMs,
+            @Value("${shareit-server.pool.acquire-timeout-ms}") int acquireTimeoutMs,
+            @Value("${shareit-server.read-timeout-ms}") int readTimeoutMs) {
+        return requestFactory(shareitServerHttpClient, connectTimeoutMs, acquireTimeoutMs, readTimeoutMs);
+    }
+
+    /**
+     * Same pool, but request bodies are written straight to the connection instead of being buffered first,
+     * so uploads of any size pass through the gateway in constant memory.
+     */
+    @Bean
+    public HttpComponentsClientHttpRequestFactory shareitServerStreamingRequestFactory(
+            HttpClient shareitServerHttpClient,
+            @Value("${shareit-server.connect-timeout-ms}") int connectTimeoutMs,
+            @Value("${shareit-server.pool.acquire-timeout-ms}") int acquireTimeoutMs,
+            @Value("${shareit-server.read-timeout-ms}") int readTimeoutMs) {
+        HttpComponentsClientHttpRequestFactory requestFactory =
+                requestFactory(shareitServerHttpClient, connectTimeoutMs, acquireTimeoutMs, readTimeoutMs);
+        requestFactory.setBufferRequestBody(false);
+        return requestFactory;
+    }
+
+    private static HttpComponentsClientHttpRequestFactory requestFactory(HttpClient httpClient, int connectTimeoutMs,
+                                                                         int acquireTimeoutMs, int readTimeoutMs) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setConnectionRequestTimeout(acquireTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return requestFactory;
+    }
+}
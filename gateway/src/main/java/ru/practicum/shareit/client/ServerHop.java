@@ -0,0 +1,83 @@
+package ru.practicum.shareit.client;
+
+import brave.Span;
+import brave.Tracing;
+import brave.propagation.Propagation;
+import brave.propagation.TraceContext;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.util.regex.Pattern;
+
+/**
+ * One gateway-to-server round trip. It is always timed as {@code shareit.gateway.hop} and traced as a client
+ * span whose context is sent to the server with the request headers. Unsampled requests get a noop span, so
+ * only the sampling decision itself travels to the server.
+ */
+class ServerHop {
+    static final String METRIC_NAME = "shareit.gateway.hop";
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final Propagation.Setter<HttpHeaders, String> SETTER = HttpHeaders::set;
+
+    private final String client;
+    private final HttpMethod method;
+    private final String uri;
+    private final Timer.Sample sample;
+    private final Tracing tracing;
+    private final Span span;
+
+    private ServerHop(String client, HttpMethod method, String path) {
+        this.client = client;
+        this.method = method;
+        this.uri = uriTemplate(path);
+        this.sample = Timer.start(Metrics.globalRegistry);
+        this.tracing = Tracing.current();
+        if (tracing == null) {
+            this.span = null;
+        } else {
+            this.span = tracing.tracer().nextSpan();
+            if (!span.isNoop()) {
+                span.kind(Span.Kind.CLIENT).name(method.name() + " " + uri).tag("http.path", path).start();
+            }
+        }
+    }
+
+    static ServerHop start(String client, HttpMethod method, String path) {
+        return new ServerHop(client, method, path);
+    }
+
+    void inject(HttpHeaders headers) {
+        if (span != null) {
+            TraceContext context = span.context();
+            tracing.propagation().injector(SETTER).inject(context, headers);
+        }
+    }
+
+    void finish(String status) {
+        sample.stop(Timer.builder(METRIC_NAME)
+                .tag("client", client)
+                .tag("method", method.name())
+                .tag("uri", uri)
+                .tag("status", status)
+                .register(Metrics.globalRegistry));
+        if (span != null && !span.isNoop()) {
+            span.tag("http.status_code", status);
+            if (!status.startsWith("2")) {
+                span.tag("error", status);
+            }
+            span.finish();
+        }
+    }
+
+    /**
+     * The path relative to the client's prefix with ids replaced by {@code {id}} and the query dropped,
+     * so the uri tag stays low-cardinality.
+     */
+    static String uriTemplate(String path) {
+        int query = path.indexOf('?');
+        String template = ID_SEGMENT.matcher(query < 0 ? path : path.substring(0, query)).replaceAll("/{id}");
+        return template.isEmpty() ? "/" : template;
+    }
+}
@@ -2,17 +2,25 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Controller
@@ -21,57 +29,85 @@ import java.util.List;
 @Validated
 public class ItemController {
     private static final String userIdInHeader = "X-Sharer-User-Id";
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_PAGE_SIZE = 1_000;
     private final ItemClient itemClient;
+    private final ItemImportReader itemImportReader;
 
     @PostMapping
-    public ResponseEntity<Object> createItem(@RequestHeader(userIdInHeader) @Positive long userId,
-                                             @RequestBody @Valid @NotNull
-                                             ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> createItem(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                   @RequestBody @Valid @NotNull
+                                                   ItemDto itemDto) {
         return itemClient.createItem(userId, itemDto);
     }
 
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> createItems(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                    @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                    List<@Valid @NotNull ItemDto> itemDtos) {
+        return itemClient.createItems(userId, itemDtos);
+    }
+
+    @PostMapping(path = "/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Object> importItems(@RequestHeader(userIdInHeader) @Positive long userId,
+                                              InputStream upload) {
+        return itemClient.importItems(userId, rows -> itemImportReader.transcode(upload, rows));
+    }
+
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader(userIdInHeader) @Positive Long userId,
-                                             @PathVariable @Positive long itemId,
-                                             @RequestBody ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> updateItem(@RequestHeader(userIdInHeader) @Positive Long userId,
+                                                   @PathVariable @Positive long itemId,
+                                                   @RequestBody ItemDto itemDto) {
         return itemClient.updateItem(userId, itemId, itemDto);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@RequestHeader(userIdInHeader) @Positive long userId,
-                                              @PathVariable("itemId") @Positive long itemId) {
+    public Mono<ResponseEntity<Object>> getItemById(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                    @PathVariable("itemId") @Positive long itemId) {
         return itemClient.getItemById(userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUserItems(@RequestHeader(userIdInHeader) @Positive long userId,
-                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                  @RequestParam(defaultValue = "10") @Positive int size) {
+    public Mono<ResponseEntity<Object>> getAllUserItems(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                        @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                        @RequestParam(defaultValue = "10")
+                                                        @Positive @Max(MAX_PAGE_SIZE) int size,
+                                                        @RequestParam(required = false) String after) {
+
+        return itemClient.getAllUserItems(userId, from, size, after);
+    }
 
-        return itemClient.getAllUserItems(userId, from, size);
+    @GetMapping("/export")
+    public void exportItems(@RequestHeader(userIdInHeader) @Positive long userId,
+                            @RequestParam(defaultValue = "ndjson") String format,
+                            HttpServletResponse response) throws IOException {
+        itemClient.exportItems(userId, format, response);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestHeader(userIdInHeader) @Positive long userId,
-                                              @RequestParam(name = "text") String text,
-                                              @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                              @RequestParam(defaultValue = "10") @Positive int size) {
+    public Mono<ResponseEntity<Object>> searchItems(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                    @RequestParam(name = "text") String text,
+                                                    @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                    @RequestParam(defaultValue = "10")
+                                                    @Positive @Max(MAX_PAGE_SIZE) int size,
+                                                    @RequestParam(required = false) String after) {
         if (text.isBlank()) {
-            return new ResponseEntity<>(List.of(), HttpStatus.OK);
+            return Mono.just(new ResponseEntity<>(List.of(), HttpStatus.OK));
         }
-        return itemClient.searchItems(userId, text, from, size);
+        return itemClient.searchItems(userId, text, from, size, after);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(@RequestHeader(userIdInHeader) @Positive long userId,
-                                             @PathVariable @Positive long itemId,
-                                             @RequestBody @Valid @NotNull CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> addComment(@RequestHeader(userIdInHeader) @Positive long userId,
+                                                   @PathVariable @Positive long itemId,
+                                                   @RequestBody @Valid @NotNull CommentDto commentDto) {
         return itemClient.addComment(userId, itemId, commentDto);
     }
 
     @DeleteMapping("/{itemId}")
-    ResponseEntity<Object> delete(@RequestHeader(userIdInHeader) @Positive long ownerId,
-                                  @PathVariable @Positive long itemId) {
+    Mono<ResponseEntity<Object>> delete(@RequestHeader(userIdInHeader) @Positive long ownerId,
+                                        @PathVariable @Positive long itemId) {
         return itemClient.deleteItem(ownerId, itemId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportRow;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads an item upload, either a JSON array or NDJSON, one row at a time and writes it on as NDJSON
+ * {@link ItemImportRow}s. Only the current row is held in memory.
+ */
+@Component
+public class ItemImportReader {
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final Validator validator;
+
+    public ItemImportReader(ObjectMapper objectMapper, Validator validator) {
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writerFor(ItemImportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.validator = validator;
+    }
+
+    public void transcode(InputStream upload, OutputStream rows) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(rows);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        long row = 1;
+        try (JsonParser parser = objectMapper.getFactory().createParser(upload)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                rowWriter.writeValue(generator, readRow(parser, row));
+                row++;
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            rowWriter.writeValue(generator, new ItemImportRow(row, null,
+                    "некорректный JSON, импорт остановлен: " + e.getOriginalMessage()));
+        }
+        generator.flush();
+    }
+
+    private ItemImportRow readRow(JsonParser parser, long row) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return new ItemImportRow(row, null, "строка должна быть JSON-объектом");
+        }
+        JsonNode node = parser.readValueAsTree();
+        ItemDto itemDto;
+        try {
+            itemDto = objectMapper.treeToValue(node, ItemDto.class);
+        } catch (JsonProcessingException e) {
+            return new ItemImportRow(row, null, "некорректные поля: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+        if (!violations.isEmpty()) {
+            return new ItemImportRow(row, null, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        itemDto.setId(null);
+        return new ItemImportRow(row, itemDto, null);
+    }
+}
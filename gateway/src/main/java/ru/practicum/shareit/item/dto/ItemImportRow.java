@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the NDJSON stream sent to the server's import endpoint: either a validated item or the reason
+ * the uploaded row was rejected, numbered as in the upload.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemImportRow {
+    private long row;
+    private ItemDto item;
+    private String error;
+}
@@ -4,9 +4,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -18,32 +20,38 @@ import javax.validation.constraints.PositiveOrZero;
 
 public class ItemRequestController {
     private static final String userIdInHeader = "X-Sharer-User-Id";
+    private static final int MAX_PAGE_SIZE = 1_000;
     private final ItemRequestClient itemRequestClient;
 
 
     @PostMapping
-    public ResponseEntity<Object> createItemRequest(@RequestHeader(userIdInHeader) @Positive Long userId,
-                                                    @RequestBody @Valid @NotNull ItemRequestDto request) {
+    public Mono<ResponseEntity<Object>> createItemRequest(@RequestHeader(userIdInHeader) @Positive Long userId,
+                                                          @RequestBody @Valid @NotNull ItemRequestDto request) {
         return itemRequestClient.createItemRequest(userId, request);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserRequests(@RequestHeader(userIdInHeader) @Positive Long userId,
-                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                  @RequestParam(defaultValue = "10") @Positive int size) {
-        return itemRequestClient.getUserRequests(userId, from, size);
+    public Mono<ResponseEntity<Object>> getUserRequests(@RequestHeader(userIdInHeader) @Positive Long userId,
+                                                        @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                        @RequestParam(defaultValue = "10")
+                                                        @Positive @Max(MAX_PAGE_SIZE) int size,
+                                                        @RequestParam(required = false) String after) {
+        return itemRequestClient.getUserRequests(userId, from, size, after);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getOtherUserRequests(@RequestHeader(userIdInHeader) @Positive Long userId,
-                                                       @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-                                                       @RequestParam(defaultValue = "10") @Positive Integer size) {
-        return itemRequestClient.getOtherUserRequests(userId, from, size);
+    public Mono<ResponseEntity<Object>> getOtherUserRequests(@RequestHeader(userIdInHeader) @Positive Long userId,
+                                                             @RequestParam(defaultValue = "0") @PositiveOrZero
+                                                             Integer from,
+                                                             @RequestParam(defaultValue = "10")
+                                                             @Positive @Max(MAX_PAGE_SIZE) Integer size,
+                                                             @RequestParam(required = false) String after) {
+        return itemRequestClient.getOtherUserRequests(userId, from, size, after);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@RequestHeader(userIdInHeader) @Positive Long userId,
-                                                 @PathVariable @Positive Long requestId) {
+    public Mono<ResponseEntity<Object>> getRequestById(@RequestHeader(userIdInHeader) @Positive Long userId,
+                                                       @PathVariable @Positive Long requestId) {
         return itemRequestClient.getItemRequestById(userId, requestId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where sampled spans go: {@code shareit.tracing.export=file} appends them to {@code shareit.tracing.file},
+ * {@code memory} keeps the latest ones in an {@link InMemorySpanHandler} bean, {@code none} drops them.
+ * How many requests are sampled is {@code spring.sleuth.sampler.probability}.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.tracing.export", havingValue = "file")
+    public FileSpanHandler fileSpanHandler(@Value("${shareit.tracing.file}") String file) throws IOException {
+        return new FileSpanHandler(Path.of(file));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.tracing.export", havingValue = "memory")
+    public InMemorySpanHandler inMemorySpanHandler(@Value("${shareit.tracing.memory-capacity}") int capacity) {
+        return new InMemorySpanHandler(capacity);
+    }
+}
@@ -0,0 +1,146 @@
+package ru.practicum.shareit.tracing;
+
+import brave.Span;
+import brave.handler.MutableSpan;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The trace context of a gateway request reaches the server: a stub in place of the server records the single
+ * {@code b3} header ({@code traceId-spanId-sampled}) it receives, and the {@link InMemorySpanHandler} holds the
+ * gateway's own spans of the same trace.
+ */
+@SpringBootTest(properties = {
+        "spring.sleuth.sampler.probability=1.0",
+        "shareit.tracing.export=memory"
+})
+@AutoConfigureMockMvc
+class TracePropagationTest {
+    private static final BlockingQueue<String[]> RECEIVED = new LinkedBlockingQueue<>();
+    private static final HttpServer SERVER = startServer();
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private InMemorySpanHandler spanHandler;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + SERVER.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        SERVER.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        RECEIVED.clear();
+        spanHandler.clear();
+    }
+
+    @Test
+    void serverReceivesContextOfClientSpan() throws Exception {
+        perform(get("/users"));
+
+        String[] b3 = received();
+        String traceId = b3[0];
+        List<MutableSpan> spans = spanHandler.getSpans(traceId);
+        MutableSpan client = spans.stream()
+                .filter(span -> span.kind() == Span.Kind.CLIENT)
+                .findFirst()
+                .orElseThrow();
+        MutableSpan server = spans.stream()
+                .filter(span -> span.kind() == Span.Kind.SERVER)
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(b3[1]).isEqualTo(client.id());
+        assertThat(b3[2]).isEqualTo("1");
+        assertThat(client.name()).isEqualTo("GET /");
+        assertThat(client.parentId()).isEqualTo(server.id());
+    }
+
+    @Test
+    void incomingTraceIsContinued() throws Exception {
+        String traceId = "463ac35c9f6413ad48485a3953bb6124";
+        perform(get("/users/1")
+                .header("X-B3-TraceId", traceId)
+                .header("X-B3-SpanId", "a2fb4a1d1a96d312")
+                .header("X-B3-Sampled", "1"));
+
+        assertThat(received()[0]).isEqualTo(traceId);
+        assertThat(spanHandler.getSpans(traceId))
+                .extracting(MutableSpan::kind)
+                .contains(Span.Kind.SERVER, Span.Kind.CLIENT);
+    }
+
+    @Test
+    void unsampledRequestPassesOnlyTheDecision() throws Exception {
+        perform(get("/users").header("X-B3-Sampled", "0"));
+
+        assertThat(received()[2]).isEqualTo("0");
+        assertThat(spanHandler.getSpans()).isEmpty();
+    }
+
+    /**
+     * The gateway answers asynchronously: the request is dispatched again once the server's response arrives.
+     */
+    private void perform(RequestBuilder builder) throws Exception {
+        MvcResult started = mvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+    }
+
+    private static String[] received() throws InterruptedException {
+        String[] b3 = RECEIVED.poll(5, TimeUnit.SECONDS);
+        assertThat(b3).as("b3 header received by the server").isNotNull().hasSize(3);
+        return b3;
+    }
+
+    private static HttpServer startServer() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                String b3 = exchange.getRequestHeaders().getFirst("b3");
+                RECEIVED.add(b3 == null ? new String[0] : b3.split("-"));
+                byte[] body = (exchange.getRequestURI().getPath().equals("/users") ? "[]" : "{}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
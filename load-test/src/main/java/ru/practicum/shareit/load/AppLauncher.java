@@ -0,0 +1,89 @@
+package ru.practicum.shareit.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts server and gateway jars as child processes, the server on the in-memory H2 database
+ * ({@code --server-profiles} should keep {@code h2} in the list). Without {@code prod} the server logs every
+ * statement, as in development, so a plain {@code h2} run is the baseline for {@code h2,prod}.
+ * Nothing is started for jars that are not given, the harness then works against running instances.
+ */
+public class AppLauncher implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final List<Process> processes = new ArrayList<>();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    public static AppLauncher start(LoadTestOptions options) throws IOException, InterruptedException {
+        AppLauncher launcher = new AppLauncher();
+        try {
+            if (options.getServerJar() != null) {
+                launcher.launch("server", options.getServerUrl(), List.of(options.getServerJar(),
+                        "--spring.profiles.active=" + options.getServerProfiles(),
+                        "--spring.jpa.show-sql=" + !hasProfile(options.getServerProfiles(), "prod"),
+                        "--server.port=" + URI.create(options.getServerUrl()).getPort()));
+            }
+            if (options.getGatewayJar() != null) {
+                launcher.launch("gateway", options.getGatewayUrl(), List.of(options.getGatewayJar(),
+                        "--shareit-server.url=" + options.getServerUrl(),
+                        "--server.port=" + URI.create(options.getGatewayUrl()).getPort(),
+                        "--logging.level.org.springframework.web.client.RestTemplate=INFO"));
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            launcher.close();
+            throw e;
+        }
+        return launcher;
+    }
+
+    private static boolean hasProfile(String profiles, String profile) {
+        return Arrays.stream(profiles.split(",")).map(String::trim).anyMatch(profile::equals);
+    }
+
+    private void launch(String name, String url, List<String> args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-jar");
+        command.addAll(args);
+        File log = new File("load-test-" + name + ".log");
+        processes.add(new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start());
+        System.out.printf("%s запускается, лог: %s%n", name, log.getAbsolutePath());
+        awaitHealthy(name, url + "/actuator/health");
+    }
+
+    private void awaitHealthy(String name, String healthUrl) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(healthUrl)).GET().build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            if (!processes.get(processes.size() - 1).isAlive()) {
+                throw new IllegalStateException(String.format("%s завершился при старте", name));
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(String.format("%s не поднялся за %s", name, STARTUP_TIMEOUT));
+    }
+
+    @Override
+    public void close() {
+        for (int i = processes.size() - 1; i >= 0; i--) {
+            processes.get(i).destroy();
+        }
+    }
+}
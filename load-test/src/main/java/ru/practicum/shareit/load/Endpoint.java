@@ -0,0 +1,74 @@
+package ru.practicum.shareit.load;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+@Getter
+@RequiredArgsConstructor
+public enum Endpoint {
+    BOOKINGS("bookings", "GET /bookings") {
+        @Override
+        Call call(SeedData data, Random random, int size) {
+            return new Call("/bookings?state=" + pick(STATES, random) + "&from=0&size=" + size,
+                    pick(data.getUserIds(), random));
+        }
+    },
+    BOOKINGS_OWNER("bookings-owner", "GET /bookings/owner") {
+        @Override
+        Call call(SeedData data, Random random, int size) {
+            return new Call("/bookings/owner?state=" + pick(STATES, random) + "&from=0&size=" + size,
+                    pick(data.getUserIds(), random));
+        }
+    },
+    SEARCH("search", "GET /items/search") {
+        @Override
+        Call call(SeedData data, Random random, int size) {
+            String text = URLEncoder.encode(pick(data.getSearchTexts(), random), StandardCharsets.UTF_8);
+            return new Call("/items/search?text=" + text + "&from=0&size=" + size, pick(data.getUserIds(), random));
+        }
+    },
+    ITEMS("items", "GET /items") {
+        @Override
+        Call call(SeedData data, Random random, int size) {
+            return new Call("/items?from=0&size=" + size, pick(data.getUserIds(), random));
+        }
+    },
+    REQUESTS("requests", "GET /requests/all") {
+        @Override
+        Call call(SeedData data, Random random, int size) {
+            return new Call("/requests/all?from=0&size=" + size, pick(data.getUserIds(), random));
+        }
+    };
+
+    private static final List<String> STATES = List.of("ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED");
+
+    private final String key;
+    private final String title;
+
+    abstract Call call(SeedData data, Random random, int size);
+
+    public static Endpoint byKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException(String.format("неизвестный эндпоинт: %s", key));
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    @Value
+    static class Call {
+        String path;
+        long userId;
+    }
+}
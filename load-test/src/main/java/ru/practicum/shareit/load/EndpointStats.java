@@ -0,0 +1,36 @@
+package ru.practicum.shareit.load;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies in microseconds plus error and SQL statement counts of one endpoint within one phase.
+ */
+@Getter
+public class EndpointStats {
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+    @Setter
+    private long elapsedNanos;
+    @Setter
+    private long statements = -1;
+
+    void record(long nanos, int status) {
+        latency.recordValue(Math.max(1, nanos / 1000));
+        if (status >= 400) {
+            errors.increment();
+        }
+    }
+
+    public long getRequests() {
+        return latency.getTotalCount();
+    }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getRequests() * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.load;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load: each thread sends the next request as soon as the previous one answers.
+ */
+public class LoadRunner {
+    private final ShareItApi api;
+    private final SeedData data;
+    private final LoadTestOptions options;
+
+    public LoadRunner(ShareItApi api, SeedData data, LoadTestOptions options) {
+        this.api = api;
+        this.data = data;
+        this.options = options;
+    }
+
+    public Map<Endpoint, EndpointStats> run(Map<Endpoint, Integer> mix, int seconds) throws InterruptedException {
+        List<Endpoint> weighted = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        mix.keySet().forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < options.getThreads(); t++) {
+            Random random = new Random(options.getSeed() + t);
+            workers.add(executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    Endpoint endpoint = weighted.get(random.nextInt(weighted.size()));
+                    Endpoint.Call call = endpoint.call(data, random, options.getPageSize());
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = api.get(call.getPath(), call.getUserId());
+                    } catch (IOException e) {
+                        status = 599;
+                    }
+                    stats.get(endpoint).record(System.nanoTime() - start, status);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("поток нагрузки упал", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - started;
+        stats.values().forEach(endpointStats -> endpointStats.setElapsedNanos(elapsed));
+        return stats;
+    }
+}
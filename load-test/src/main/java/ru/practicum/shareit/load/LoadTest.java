@@ -0,0 +1,128 @@
+package ru.practicum.shareit.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Seeds the database through the gateway, then measures every endpoint of the mix on its own (so that the
+ * server's Hibernate statement counter can be attributed to it) and finally the whole mix together.
+ */
+public class LoadTest {
+    private static final String ROW = "%-20s %9s %7s %9s %9s %9s %9s %9s %9s %8s%n";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        try (AppLauncher ignored = AppLauncher.start(options)) {
+            ShareItApi api = new ShareItApi(options.getGatewayUrl());
+            ServerMetrics metrics = new ServerMetrics(api, options.getServerUrl());
+            ServerMetrics gatewayMetrics = new ServerMetrics(api, options.getGatewayUrl());
+
+            long seedStarted = System.nanoTime();
+            SeedData data = new Seeder(api, options).seed();
+            System.out.printf("наполнение заняло %d с%n", (System.nanoTime() - seedStarted) / 1_000_000_000);
+
+            LoadRunner runner = new LoadRunner(api, data, options);
+            if (options.getWarmupSeconds() > 0) {
+                System.out.printf("прогрев %d с%n", options.getWarmupSeconds());
+                runner.run(options.getMix(), options.getWarmupSeconds());
+            }
+
+            Map<Endpoint, EndpointStats> isolated = new EnumMap<>(Endpoint.class);
+            for (Endpoint endpoint : options.getMix().keySet()) {
+                System.out.printf("%s: %d с, %d потоков%n", endpoint.getTitle(), options.getDurationSeconds(),
+                        options.getThreads());
+                long before = metrics.preparedStatements();
+                EndpointStats stats = runner.run(Map.of(endpoint, 1), options.getDurationSeconds()).get(endpoint);
+                long after = metrics.preparedStatements();
+                if (before >= 0 && after >= 0) {
+                    stats.setStatements(after - before);
+                }
+                isolated.put(endpoint, stats);
+            }
+
+            System.out.printf("смесь %s: %d с, %d потоков%n", describe(options.getMix()),
+                    options.getDurationSeconds(), options.getThreads());
+            long before = metrics.preparedStatements();
+            ServerMetrics.Pool poolBefore = metrics.pool();
+            Map<Endpoint, EndpointStats> mixed = runner.run(options.getMix(), options.getDurationSeconds());
+            long after = metrics.preparedStatements();
+            ServerMetrics.Pool poolAfter = metrics.pool();
+
+            System.out.println();
+            System.out.println("Каждый эндпоинт отдельно:");
+            print(System.out, isolated);
+            System.out.println();
+            System.out.println("Смесь:");
+            print(System.out, mixed);
+            long requests = mixed.values().stream().mapToLong(EndpointStats::getRequests).sum();
+            double throughput = mixed.values().stream().mapToDouble(EndpointStats::getThroughput).sum();
+            System.out.printf("всего: %d запросов, %.1f запр/с, SQL на запрос %s%n", requests, throughput,
+                    perRequest(before >= 0 && after >= 0 ? after - before : -1, requests));
+            if (poolBefore != null && poolAfter != null) {
+                System.out.println(poolAfter.describeSince(poolBefore));
+            }
+            int gatewayThreads = gatewayMetrics.peakThreads();
+            if (gatewayThreads >= 0) {
+                System.out.printf("потоки gateway: пик %d%n", gatewayThreads);
+            }
+
+            if (options.getReportDir() != null) {
+                writeHistograms(Paths.get(options.getReportDir()), isolated, mixed);
+            }
+        }
+    }
+
+    private static void print(PrintStream out, Map<Endpoint, EndpointStats> stats) {
+        out.printf(ROW, "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms",
+                "max ms", "sql/req");
+        stats.forEach((endpoint, endpointStats) -> {
+            Histogram latency = endpointStats.getLatency();
+            out.printf(ROW, endpoint.getKey(), endpointStats.getRequests(), endpointStats.getErrors().sum(),
+                    String.format("%.1f", endpointStats.getThroughput()),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()),
+                    perRequest(endpointStats.getStatements(), endpointStats.getRequests()));
+        });
+    }
+
+    private static void writeHistograms(Path dir, Map<Endpoint, EndpointStats> isolated,
+                                        Map<Endpoint, EndpointStats> mixed) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<Endpoint, EndpointStats> entry : isolated.entrySet()) {
+            writeHistogram(dir.resolve(entry.getKey().getKey() + ".hgrm"), entry.getValue());
+        }
+        for (Map.Entry<Endpoint, EndpointStats> entry : mixed.entrySet()) {
+            writeHistogram(dir.resolve("mix-" + entry.getKey().getKey() + ".hgrm"), entry.getValue());
+        }
+        System.out.printf("гистограммы записаны в %s%n", dir.toAbsolutePath());
+    }
+
+    private static void writeHistogram(Path file, EndpointStats stats) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            stats.getLatency().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static String describe(Map<Endpoint, Integer> mix) {
+        return mix.entrySet().stream()
+                .map(entry -> entry.getKey().getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    private static String perRequest(long statements, long requests) {
+        return statements < 0 || requests == 0 ? "n/a" : String.format("%.1f", (double) statements / requests);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.load;
+
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line options in the form {@code --name=value}.
+ */
+@Getter
+public class LoadTestOptions {
+    private String gatewayUrl = "http://localhost:8080";
+    private String serverUrl = "http://localhost:9090";
+    private String serverJar;
+    private String serverProfiles = "h2,prod";
+    private String gatewayJar;
+    private int users = 50;
+    private int items = 500;
+    private int bookings = 2000;
+    private int comments = 100;
+    private int requests = 200;
+    private int threads = 16;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 20;
+    private int pageSize = 10;
+    private long seed = 42;
+    private String reportDir;
+    private Map<Endpoint, Integer> mix = parseMix("bookings=25,bookings-owner=15,search=30,items=20,requests=10");
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException(String.format("ожидается --параметр=значение: %s", arg));
+            }
+            options.set(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        if (options.users < 2) {
+            throw new IllegalArgumentException("нужно минимум два пользователя: владелец и арендатор");
+        }
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "gateway-url":
+                gatewayUrl = value;
+                break;
+            case "server-url":
+                serverUrl = value;
+                break;
+            case "server-jar":
+                serverJar = value;
+                break;
+            case "server-profiles":
+                serverProfiles = value;
+                break;
+            case "gateway-jar":
+                gatewayJar = value;
+                break;
+            case "users":
+                users = Integer.parseInt(value);
+                break;
+            case "items":
+                items = Integer.parseInt(value);
+                break;
+            case "bookings":
+                bookings = Integer.parseInt(value);
+                break;
+            case "comments":
+                comments = Integer.parseInt(value);
+                break;
+            case "requests":
+                requests = Integer.parseInt(value);
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "warmup-seconds":
+                warmupSeconds = Integer.parseInt(value);
+                break;
+            case "duration-seconds":
+                durationSeconds = Integer.parseInt(value);
+                break;
+            case "page-size":
+                pageSize = Integer.parseInt(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            case "report-dir":
+                reportDir = value;
+                break;
+            case "mix":
+                mix = parseMix(value);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("неизвестный параметр: %s", name));
+        }
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Endpoint.byKey(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException(String.format("пустая смесь запросов: %s", value));
+        }
+        return weights;
+    }
+}
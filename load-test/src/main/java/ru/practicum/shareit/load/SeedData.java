@@ -0,0 +1,12 @@
+package ru.practicum.shareit.load;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class SeedData {
+    List<Long> userIds;
+    List<Long> itemIds;
+    List<String> searchTexts;
+}
@@ -0,0 +1,179 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fills the database through the public API so that every row passes the same validation as real traffic.
+ * Future bookings of one item never overlap, so every other one can be approved. Comments need a finished
+ * approved booking, hence one short booking per commented item and a wait until it ends.
+ */
+public class Seeder {
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final List<String> WORDS = List.of("дрель", "пила", "лестница", "палатка", "велосипед",
+            "шуруповёрт", "перфоратор", "самокат", "проектор", "байдарка", "гитара", "фотоаппарат");
+    private static final List<String> ADJECTIVES = List.of("новый", "мощный", "лёгкий", "складной", "детский",
+            "туристический", "профессиональный", "компактный");
+
+    private final ShareItApi api;
+    private final LoadTestOptions options;
+    private final Random random;
+    private final Map<Long, Long> owners = new HashMap<>();
+    private final List<Long> bookable = new ArrayList<>();
+
+    public Seeder(ShareItApi api, LoadTestOptions options) {
+        this.api = api;
+        this.options = options;
+        this.random = new Random(options.getSeed());
+    }
+
+    public SeedData seed() throws InterruptedException {
+        List<Long> userIds = createUsers();
+        List<Long> requestIds = createRequests(userIds);
+        List<Long> itemIds = createItems(userIds, requestIds);
+        createBookings(userIds);
+        createComments(userIds);
+        List<String> searchTexts = new ArrayList<>(WORDS);
+        WORDS.forEach(word -> searchTexts.add(word.substring(0, 3)));
+        searchTexts.addAll(ADJECTIVES);
+        return new SeedData(userIds, itemIds, searchTexts);
+    }
+
+    private List<Long> createUsers() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < options.getUsers(); i++) {
+            ObjectNode user = api.object()
+                    .put("name", "user" + i)
+                    .put("email", "user" + i + "-" + options.getSeed() + "@load.test");
+            ids.add(api.create("/users", null, user));
+        }
+        progress("пользователей", ids.size());
+        return ids;
+    }
+
+    private List<Long> createRequests(List<Long> userIds) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < options.getRequests(); i++) {
+            ObjectNode request = api.object().put("description", "Нужна " + word() + " на выходные");
+            ids.add(api.create("/requests", userIds.get(i % userIds.size()), request));
+        }
+        progress("запросов", ids.size());
+        return ids;
+    }
+
+    private List<Long> createItems(List<Long> userIds, List<Long> requestIds) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < options.getItems(); i++) {
+            String word = word();
+            boolean available = i % 10 != 9;
+            ObjectNode item = api.object()
+                    .put("name", word + " " + i)
+                    .put("description", adjective() + " " + word + ", " + adjective())
+                    .put("available", available);
+            if (i % 2 == 0 && i / 2 < requestIds.size()) {
+                item.put("requestId", requestIds.get(i / 2));
+            }
+            long ownerId = userIds.get(i % userIds.size());
+            long itemId = api.create("/items", ownerId, item);
+            owners.put(itemId, ownerId);
+            if (available) {
+                bookable.add(itemId);
+            }
+            ids.add(itemId);
+        }
+        progress("вещей", ids.size());
+        return ids;
+    }
+
+    private void createBookings(List<Long> userIds) {
+        if (bookable.isEmpty()) {
+            return;
+        }
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        for (int i = 0; i < options.getBookings(); i++) {
+            long itemId = bookable.get(i % bookable.size());
+            LocalDateTime start = base.plusDays(2L * (i / bookable.size()));
+            long bookingId = book(booker(userIds, itemId), itemId, start, start.plusDays(1));
+            switch (i % 4) {
+                case 0:
+                case 1:
+                    api.patch("/bookings/" + bookingId + "?approved=true", owners.get(itemId));
+                    break;
+                case 2:
+                    api.patch("/bookings/" + bookingId + "?approved=false", owners.get(itemId));
+                    break;
+                default:
+                    break;
+            }
+        }
+        progress("бронирований", options.getBookings());
+    }
+
+    private void createComments(List<Long> userIds) throws InterruptedException {
+        int count = Math.min(options.getComments(), bookable.size());
+        if (count < options.getComments()) {
+            System.out.printf("комментариев не больше одного на вещь, будет создано %d%n", count);
+        }
+        if (count == 0) {
+            return;
+        }
+        LocalDateTime end = LocalDateTime.now();
+        List<Long> authors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long itemId = bookable.get(i);
+            long booker = booker(userIds, itemId);
+            LocalDateTime start = LocalDateTime.now().plusSeconds(2);
+            end = start.plusSeconds(1);
+            long bookingId = book(booker, itemId, start, end);
+            api.patch("/bookings/" + bookingId + "?approved=true", owners.get(itemId));
+            authors.add(booker);
+        }
+        long waitMillis = Duration.between(LocalDateTime.now(), end).toMillis() + 1000;
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+        }
+        for (int i = 0; i < count; i++) {
+            ObjectNode comment = api.object().put("text", adjective() + " " + word() + ", рекомендую");
+            api.create("/items/" + bookable.get(i) + "/comment", authors.get(i), comment);
+        }
+        progress("комментариев", count);
+    }
+
+    private long book(long bookerId, long itemId, LocalDateTime start, LocalDateTime end) {
+        ObjectNode booking = api.object()
+                .put("itemId", itemId)
+                .put("start", DATE_TIME.format(start))
+                .put("end", DATE_TIME.format(end));
+        return api.create("/bookings", bookerId, booking);
+    }
+
+    private long booker(List<Long> userIds, long itemId) {
+        long ownerId = owners.get(itemId);
+        long bookerId = ownerId;
+        while (bookerId == ownerId) {
+            bookerId = userIds.get(random.nextInt(userIds.size()));
+        }
+        return bookerId;
+    }
+
+    private String word() {
+        return WORDS.get(random.nextInt(WORDS.size()));
+    }
+
+    private String adjective() {
+        return ADJECTIVES.get(random.nextInt(ADJECTIVES.size()));
+    }
+
+    private static void progress(String what, int count) {
+        System.out.printf("создано %s: %d%n", what, count);
+    }
+}
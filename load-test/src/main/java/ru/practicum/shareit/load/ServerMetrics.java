@@ -0,0 +1,87 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Value;
+
+/**
+ * Reads the Hibernate statement counter the server exposes through actuator when it runs with the h2 profile,
+ * and the HikariCP pool meters it always exposes. The JVM thread meters are read from the gateway as well.
+ */
+public class ServerMetrics {
+    private static final String STATEMENTS = "/actuator/metrics/hibernate.statements?tag=status:prepared";
+    private static final String POOL_ACQUIRE = "/actuator/metrics/hikaricp.connections.acquire";
+    private static final String POOL_MAX = "/actuator/metrics/hikaricp.connections.max";
+    private static final String THREADS_PEAK = "/actuator/metrics/jvm.threads.peak";
+
+    private final ShareItApi api;
+    private final String serverUrl;
+
+    public ServerMetrics(ShareItApi api, String serverUrl) {
+        this.api = api;
+        this.serverUrl = serverUrl;
+    }
+
+    /**
+     * Number of JDBC statements prepared so far or -1 when statistics are switched off on the server.
+     */
+    public long preparedStatements() {
+        try {
+            JsonNode measurements = api.getJson(serverUrl + STATEMENTS).path("measurements");
+            return measurements.isEmpty() ? -1 : measurements.get(0).path("value").asLong();
+        } catch (IllegalStateException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Connection acquisitions so far, or {@code null} when the server does not expose pool metrics.
+     */
+    public Pool pool() {
+        try {
+            JsonNode acquire = api.getJson(serverUrl + POOL_ACQUIRE).path("measurements");
+            JsonNode max = api.getJson(serverUrl + POOL_MAX).path("measurements");
+            return new Pool(measurement(acquire, "COUNT").longValue(),
+                    measurement(acquire, "TOTAL_TIME").doubleValue() * 1000,
+                    measurement(acquire, "MAX").doubleValue() * 1000,
+                    max.path(0).path("value").asInt());
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Highest number of live threads since the JVM started, or -1 when it is not exposed.
+     */
+    public int peakThreads() {
+        try {
+            JsonNode measurements = api.getJson(serverUrl + THREADS_PEAK).path("measurements");
+            return measurements.isEmpty() ? -1 : measurements.get(0).path("value").asInt();
+        } catch (IllegalStateException e) {
+            return -1;
+        }
+    }
+
+    private static JsonNode measurement(JsonNode measurements, String statistic) {
+        for (JsonNode measurement : measurements) {
+            if (statistic.equals(measurement.path("statistic").asText())) {
+                return measurement.path("value");
+            }
+        }
+        return measurements.path(-1);
+    }
+
+    @Value
+    public static class Pool {
+        long acquisitions;
+        double totalWaitMillis;
+        double maxWaitMillis;
+        int size;
+
+        public String describeSince(Pool before) {
+            long count = acquisitions - before.acquisitions;
+            double wait = totalWaitMillis - before.totalWaitMillis;
+            return String.format("пул соединений (%d): %d выдач, ожидание в среднем %.3f мс, максимум %.1f мс",
+                    size, count, count == 0 ? 0 : wait / count, maxWaitMillis);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Thin blocking client of the gateway API used both for seeding and for driving load.
+ */
+public class ShareItApi {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+
+    public ShareItApi(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+    }
+
+    public ObjectNode object() {
+        return mapper.createObjectNode();
+    }
+
+    public long create(String path, Long userId, ObjectNode body) {
+        HttpRequest.Builder request = request(path, userId)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+        return send(request.build()).path("id").asLong();
+    }
+
+    public void patch(String path, long userId) {
+        send(request(path, userId).method("PATCH", HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    /**
+     * Sends a GET and drops the body, only the status is of interest under load.
+     */
+    public int get(String path, long userId) throws IOException, InterruptedException {
+        return client.send(request(path, userId).GET().build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    public JsonNode getJson(String url) {
+        return send(HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT).GET().build());
+    }
+
+    private HttpRequest.Builder request(String path, Long userId) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+        if (userId != null) {
+            builder.header(USER_ID_HEADER, String.valueOf(userId));
+        }
+        return builder;
+    }
+
+    private JsonNode send(HttpRequest request) {
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("%s %s: %s", request.method(), request.uri(),
+                    e.getMessage()), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("прервано", e);
+        }
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(String.format("%s %s: %d %s", request.method(), request.uri(),
+                    response.statusCode(), response.body()));
+        }
+        try {
+            return response.body().isEmpty() ? mapper.nullNode() : mapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("%s %s: неверный JSON", request.method(),
+                    request.uri()), e);
+        }
+    }
+}
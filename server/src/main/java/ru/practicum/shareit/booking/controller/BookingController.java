@@ -2,12 +2,20 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingFilter;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.OutputBookingDto;
 import ru.practicum.shareit.booking.dto.InputBookingDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.pagination.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -28,6 +36,12 @@ public class BookingController {
         return bookingService.addBooking(bookingDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<OutputBookingDto> addBookings(@RequestHeader(userIdInHeader) long userId,
+                                              @RequestBody List<InputBookingDto> bookingDtos) {
+        return bookingService.addBookings(bookingDtos, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public OutputBookingDto updateBooking(@RequestHeader(userIdInHeader) long userId,
                                           @PathVariable long bookingId,
@@ -45,15 +59,67 @@ public class BookingController {
     public List<OutputBookingDto> getBookingsOfBooker(@RequestParam(required = false) String state,
                                                       @RequestHeader(userIdInHeader) Long bookerId,
                                                       @RequestParam(required = false) int from,
-                                                      @RequestParam(required = false) int size) {
-        return bookingService.getBookingsOfBooker(state, bookerId, from, size);
+                                                      @RequestParam(required = false) int size,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(required = false) Long itemId,
+                                                      @RequestParam(required = false)
+                                                      @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime rangeStart,
+                                                      @RequestParam(required = false)
+                                                      @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime rangeEnd,
+                                                      HttpServletResponse response) {
+        List<OutputBookingDto> bookings = bookingService.getBookingsOfBooker(state, bookerId,
+                new BookingFilter(itemId, rangeStart, rangeEnd), from, size, Cursor.decode(after));
+        Cursor.setNextCursor(response, bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
+        return bookings;
     }
 
     @GetMapping("/owner")
     public List<OutputBookingDto> getBookingsOfOwner(@RequestParam(required = false) String state,
                                                      @RequestHeader(userIdInHeader) Long ownerId,
                                                      @RequestParam(required = false) int from,
-                                                     @RequestParam(required = false) int size) {
-        return bookingService.getBookingsOfOwner(state, ownerId, from, size);
+                                                     @RequestParam(required = false) int size,
+                                                     @RequestParam(required = false) String after,
+                                                     @RequestParam(required = false) Long itemId,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime rangeStart,
+                                                     @RequestParam(required = false)
+                                                     @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime rangeEnd,
+                                                     HttpServletResponse response) {
+        List<OutputBookingDto> bookings = bookingService.getBookingsOfOwner(state, ownerId,
+                new BookingFilter(itemId, rangeStart, rangeEnd), from, size, Cursor.decode(after));
+        Cursor.setNextCursor(response, bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
+        return bookings;
+    }
+
+    @GetMapping("/summary")
+    public BookingSummaryDto getSummaryOfBooker(@RequestHeader(userIdInHeader) long bookerId) {
+        return bookingService.getSummaryOfBooker(bookerId);
+    }
+
+    @GetMapping("/owner/summary")
+    public BookingSummaryDto getSummaryOfOwner(@RequestHeader(userIdInHeader) long ownerId) {
+        return bookingService.getSummaryOfOwner(ownerId);
+    }
+
+    @GetMapping("/export")
+    public void exportBookingsOfBooker(@RequestHeader(userIdInHeader) long bookerId,
+                                       @RequestParam(defaultValue = "ndjson") String format,
+                                       HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.getFormat(format);
+        bookingService.exportBookingsOfBooker(bookerId, exportFormat, () -> {
+            exportFormat.setResponseHeaders(response, "bookings");
+            return response.getOutputStream();
+        });
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsOfOwner(@RequestHeader(userIdInHeader) long ownerId,
+                                      @RequestParam(defaultValue = "ndjson") String format,
+                                      HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.getFormat(format);
+        bookingService.exportBookingsOfOwner(ownerId, exportFormat, () -> {
+            exportFormat.setResponseHeaders(response, "owner-bookings");
+            return response.getOutputStream();
+        });
     }
-}
\ No newline at end of file
+}
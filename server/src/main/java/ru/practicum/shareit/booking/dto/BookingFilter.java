@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters of the booking lists on top of the state; {@code null} fields are not applied.
+ */
+@Data
+@AllArgsConstructor
+public class BookingFilter {
+    private Long itemId;
+    /**
+     * Bookings that end after this moment.
+     */
+    private LocalDateTime rangeStart;
+    /**
+     * Bookings that start before this moment.
+     */
+    private LocalDateTime rangeEnd;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingPartition {
+    private String name;
+    /**
+     * Exclusive upper bound of END_BOOKING, {@code null} for the default partition.
+     */
+    private LocalDateTime upperBound;
+    /**
+     * Empty when the partition is in the database's default tablespace.
+     */
+    private String tablespace;
+}
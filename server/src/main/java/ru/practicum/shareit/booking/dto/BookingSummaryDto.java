@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingSummaryDto {
+    private long total;
+    private long waiting;
+    private long approved;
+    private long rejected;
+    private long canceled;
+    private long expired;
+    private OutputBookingDto nextBooking;
+}
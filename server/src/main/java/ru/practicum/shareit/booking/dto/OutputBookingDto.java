@@ -21,4 +21,14 @@ public class OutputBookingDto {
     private ItemDto item;
     private UserDto booker;
     private BookingStatus status;
+
+    /**
+     * Flat form for JPQL constructor expressions.
+     */
+    public OutputBookingDto(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status, Long itemId,
+                            String itemName, String itemDescription, Boolean itemAvailable, Long itemRequestId,
+                            Long bookerId, String bookerName, String bookerEmail) {
+        this(id, start, end, new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemRequestId),
+                new UserDto(bookerId, bookerName, bookerEmail), status);
+    }
 }
\ No newline at end of file
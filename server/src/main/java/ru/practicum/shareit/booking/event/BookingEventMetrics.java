@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.outbox.OutboxConsumer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counts delivered booking events by type as {@code shareit.booking.events}.
+ */
+@Component
+public class BookingEventMetrics implements OutboxConsumer<BookingEvent> {
+    private final Map<BookingEventType, Counter> counters = new EnumMap<>(BookingEventType.class);
+
+    public BookingEventMetrics(MeterRegistry meterRegistry) {
+        for (BookingEventType type : BookingEventType.values()) {
+            counters.put(type, Counter.builder("shareit.booking.events")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public String getTopic() {
+        return BookingEvent.TOPIC;
+    }
+
+    @Override
+    public Class<BookingEvent> getPayloadType() {
+        return BookingEvent.class;
+    }
+
+    @Override
+    public void consume(BookingEvent event) {
+        counters.get(event.getType()).increment();
+    }
+}
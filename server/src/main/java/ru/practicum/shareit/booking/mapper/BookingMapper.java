@@ -1,8 +1,12 @@
 package ru.practicum.shareit.booking.mapper;
 
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.OutputBookingDto;
 import ru.practicum.shareit.booking.dto.ShortBookingDto;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventType;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingSummary;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
@@ -21,6 +25,19 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingEvent toBookingEvent(Booking booking, BookingEventType type) {
+        return BookingEvent.builder()
+                .type(type)
+                .bookingId(booking.getId())
+                .itemId(booking.getItem().getId())
+                .bookerId(booking.getBooker().getId())
+                .ownerId(booking.getItem().getOwner().getId())
+                .status(booking.getStatus())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .build();
+    }
+
     public static ShortBookingDto bookingDtoShort(Booking booking) {
         return booking == null ? null : ShortBookingDto.builder()
                 .id(booking.getId())
@@ -36,4 +53,17 @@ public class BookingMapper {
                 .map(BookingMapper::toBookingDtoRequest)
                 .collect(Collectors.toList());
     }
+
+    public static BookingSummaryDto toBookingSummaryDto(BookingSummary summary, OutputBookingDto nextBooking) {
+        return BookingSummaryDto.builder()
+                .total(summary.getWaiting() + summary.getApproved() + summary.getRejected() + summary.getCanceled()
+                        + summary.getExpired())
+                .waiting(summary.getWaiting())
+                .approved(summary.getApproved())
+                .rejected(summary.getRejected())
+                .canceled(summary.getCanceled())
+                .expired(summary.getExpired())
+                .nextBooking(nextBooking)
+                .build();
+    }
 }
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Booking counters of a user in one role, kept up to date by the booking service instead of being counted on
+ * every read. {@code nextBookingId}/{@code nextStart} cache the earliest WAITING or APPROVED booking that has
+ * not started yet; once {@code nextStart} is in the past the cache is stale and is looked up again.
+ */
+@Data
+@Entity
+@Builder
+@Table(name = "booking_summaries")
+@IdClass(BookingSummary.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSummary {
+    public static final LocalDateTime NEXT_BOOKING_UNKNOWN = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    private Long userId;
+    @Id
+    @Enumerated(EnumType.STRING)
+    private BookingRole role;
+    private long waiting;
+    private long approved;
+    private long rejected;
+    private long canceled;
+    private long expired;
+    private Long nextBookingId;
+    private LocalDateTime nextStart;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private BookingRole role;
+    }
+}
@@ -3,7 +3,7 @@ package ru.practicum.shareit.booking.model;
 import ru.practicum.shareit.exception.ArgumentException;
 
 public enum State {
-    ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED;
+    ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED, EXPIRED;
 
     public static State getState(String text) {
         try {
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingPartition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL on the partitions of BOOKINGS (PostgreSQL only). Methods that change partitions expect a transaction and
+ * take a transaction-level advisory lock first, so server instances running the maintenance at the same time
+ * take turns and the later one finds the work done.
+ */
+@Repository
+public class BookingPartitionRepository {
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookingPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void lock() {
+        jdbcTemplate.queryForObject("select pg_advisory_xact_lock(hashtext('bookings_partitions'))", Object.class);
+    }
+
+    public List<BookingPartition> findPartitions() {
+        return jdbcTemplate.query("select c.relname, pg_get_expr(c.relpartbound, c.oid), coalesce(t.spcname, '') " +
+                        " from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+                        " left join pg_tablespace t on t.oid = c.reltablespace " +
+                        " where i.inhparent = 'bookings'::regclass order by c.relname",
+                (rs, rowNum) -> new BookingPartition(rs.getString(1), upperBound(rs.getString(2)), rs.getString(3)));
+    }
+
+    public boolean tablespaceExists(String tablespace) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists (select 1 from pg_tablespace where spcname = ?)", Boolean.class, tablespace));
+    }
+
+    /**
+     * Creates the partition of the month unless it exists. Bookings of that month already in the default
+     * partition are moved over, with the default partition detached meanwhile (inserts into BOOKINGS wait for
+     * the commit).
+     */
+    public boolean createMonth(YearMonth month) {
+        lock();
+        String name = "bookings_p" + month.format(MONTH_SUFFIX);
+        if (jdbcTemplate.queryForObject("select to_regclass(?)", String.class, name) != null) {
+            return false;
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        String create = String.format("create table %s partition of bookings for values from ('%s') to ('%s')",
+                name, from, to);
+        boolean inDefault = Boolean.TRUE.equals(jdbcTemplate.queryForObject("select exists (select 1 from " +
+                        " bookings_default where end_booking >= ? and end_booking < ?)", Boolean.class,
+                from.atStartOfDay(), to.atStartOfDay()));
+        if (!inDefault) {
+            jdbcTemplate.execute(create);
+            return true;
+        }
+        jdbcTemplate.execute("alter table bookings detach partition bookings_default");
+        jdbcTemplate.execute(create);
+        jdbcTemplate.update("with moved as (delete from bookings_default where end_booking >= ? " +
+                " and end_booking < ? returning *) insert into bookings select * from moved",
+                from.atStartOfDay(), to.atStartOfDay());
+        jdbcTemplate.execute("alter table bookings attach partition bookings_default default");
+        return true;
+    }
+
+    /**
+     * Moves the table of the partition to the tablespace. The table is rewritten under an ACCESS EXCLUSIVE lock held
+     * until the transaction ends, and every query on BOOKINGS that does not prune the partition when it is planned
+     * waits for it: lookups by id alone, ALL and owner lists, generic plans. The lock is taken only if it is granted
+     * within {@code lockTimeoutMs}, so the move never queues behind a long query with every other query queued
+     * behind the move; otherwise a {@link org.springframework.dao.CannotAcquireLockException} is thrown.
+     */
+    public void moveTableToTablespace(String partition, String tablespace, long lockTimeoutMs) {
+        lock();
+        setLockTimeout(lockTimeoutMs);
+        jdbcTemplate.execute(String.format("alter table %s set tablespace %s", partition, tablespace));
+    }
+
+    public List<String> findIndexes(String partition) {
+        return jdbcTemplate.queryForList("select indexrelid::regclass::text from pg_index " +
+                " where indrelid = ?::regclass", String.class, partition);
+    }
+
+    /**
+     * Moves one index like {@link #moveTableToTablespace}; an index already in the tablespace is left as is.
+     */
+    public void moveIndexToTablespace(String index, String tablespace, long lockTimeoutMs) {
+        lock();
+        setLockTimeout(lockTimeoutMs);
+        jdbcTemplate.execute(String.format("alter index %s set tablespace %s", index, tablespace));
+    }
+
+    private void setLockTimeout(long lockTimeoutMs) {
+        jdbcTemplate.execute(String.format("set local lock_timeout = %d", lockTimeoutMs));
+    }
+
+    private static LocalDateTime upperBound(String bound) {
+        Matcher matcher = UPPER_BOUND.matcher(bound);
+        return matcher.find() ? LocalDateTime.parse(matcher.group(1), BOUND) : null;
+    }
+}
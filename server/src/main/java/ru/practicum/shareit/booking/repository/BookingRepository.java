@@ -1,58 +1,124 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingStatusCount;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * BOOKINGS is partitioned by END_BOOKING on PostgreSQL. Queries for bookings that start after some moment also say
+ * that they end after it (end is always after start), which lets the planner skip the old partitions.
+ */
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+    String EXPORT_FETCH_SIZE = "500";
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Sort SORT_BY_START_DESC = Sort.by(Sort.Direction.DESC, "start");
+    String OUTPUT_DTO = "select new ru.practicum.shareit.booking.dto.OutputBookingDto(b.id, b.start, b.end, " +
+            " b.status, i.id, i.name, i.description, i.available, i.request.id, u.id, u.name, u.email) " +
+            " from Booking b join b.item i join b.booker u ";
 
-    List<Booking> findAllByBookerId(long bookerId, Pageable pageable);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select b from Booking b where b.id = :bookingId")
+    Optional<Booking> findByIdForUpdate(@Param("bookingId") Long bookingId);
 
-    List<Booking> findAllByBookerIdAndStatus(long bookerId, BookingStatus status, Pageable pageable);
+    /**
+     * Bookings of the status that started before the given time, oldest first, with their rows locked. Rows
+     * already locked, e.g. by an approval in progress, are skipped (lock timeout -2 is SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query(value = "select b from Booking b where b.status = :status and b.start < :dateTime " +
+            " order by b.start asc, b.id asc")
+    List<Booking> findStartedForUpdate(@Param("status") BookingStatus status,
+                                       @Param("dateTime") LocalDateTime dateTime, Pageable pageable);
 
-    List<Booking> findAllByBookerIdAndStartAfter(long bookerId, LocalDateTime start, Pageable pageable);
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Booking b set b.status = :status where b.id in :bookingIds")
+    int setStatus(@Param("bookingIds") Collection<Long> bookingIds, @Param("status") BookingStatus status);
 
-    List<Booking> findAllByBookerIdAndEndBefore(long bookerId, LocalDateTime end, Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = OUTPUT_DTO + " where u.id = :bookerId order by b.start desc, b.id desc")
+    Stream<OutputBookingDto> streamAllByBookerId(@Param("bookerId") long bookerId);
 
-    @Query(value = "select b from Booking b where b.booker.id = ?1 and b.start < ?2 and b.end > ?2 order by b.start desc")
-    List<Booking> findAllByBookerIdAndStartBeforeAndEndAfter(long bookerId, LocalDateTime dateTime, Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = OUTPUT_DTO + " where i.owner.id = :ownerId order by b.start desc, b.id desc")
+    Stream<OutputBookingDto> streamAllByOwnerId(@Param("ownerId") long ownerId);
 
-    @Query(value = "select b from Booking b join fetch b.item as i join fetch i.owner as o " +
-            " where o.id = :ownerId order by b.start desc")
-    List<Booking> findAllByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+    Optional<Booking> findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(long itemId, BookingStatus status,
+                                                                               LocalDateTime dateTime);
 
-    @Query(value = "select b from Booking b join fetch b.item as i join fetch i.owner as o " +
-            " where o.id = :ownerId and b.status = :status order by b.start desc")
-    List<Booking> findAllByOwnerIdAndStatus(@Param("ownerId") Long ownerId, @Param("status") BookingStatus status,
-                                            Pageable pageable);
+    Optional<Booking> findFirstByItemIdAndStatusAndStartAfterAndEndAfterOrderByStartAsc(long itemId,
+                                                                                        BookingStatus status,
+                                                                                        LocalDateTime start,
+                                                                                        LocalDateTime end);
 
-    @Query(value = "select b from Booking b join fetch b.item as i join fetch i.owner as o " +
-            " where o.id = :ownerId and b.start > :dateTime")
-    List<Booking> findAllByOwnerIdAndStartAfter(@Param("ownerId") Long ownerId,
-                                                @Param("dateTime") LocalDateTime dateTime, Pageable pageable);
+    @Query(value = "select b from Booking b where b.item.id in :itemIds and b.status = :status " +
+            " and b.start = (select max(lb.start) from Booking lb where lb.item.id = b.item.id " +
+            " and lb.status = :status and lb.start < :dateTime)")
+    List<Booking> findLastBookingsOfItems(@Param("itemIds") List<Long> itemIds, @Param("status") BookingStatus status,
+                                          @Param("dateTime") LocalDateTime dateTime);
 
-    @Query(value = "select b from Booking b join fetch b.item as i join fetch i.owner as o " +
-            " where o.id = :ownerId and b.end < :dateTime  order by b.start desc")
-    List<Booking> findAllByOwnerIdAndEndBefore(@Param("ownerId") Long ownerId,
-                                               @Param("dateTime") LocalDateTime dateTime, Pageable pageable);
+    @Query(value = "select b from Booking b where b.item.id in :itemIds and b.status = :status " +
+            " and b.start = (select min(nb.start) from Booking nb where nb.item.id = b.item.id " +
+            " and nb.status = :status and nb.start > :dateTime and nb.end > :dateTime) and b.end > :dateTime")
+    List<Booking> findNextBookingsOfItems(@Param("itemIds") List<Long> itemIds, @Param("status") BookingStatus status,
+                                          @Param("dateTime") LocalDateTime dateTime);
 
-    @Query(value = "select b from Booking b join fetch b.item as i join fetch i.owner as o " +
-            " where o.id = :ownerId and b.start < :dateTime and b.end > :dateTime order by b.start desc")
-    List<Booking> findAllByOwnerIdAndStartBeforeAndEndAfter(@Param("ownerId") Long ownerId,
-                                                            @Param("dateTime") LocalDateTime dateTime,
-                                                            Pageable pageable);
+    boolean existsByItemIdAndStatusAndStartBeforeAndEndAfter(long itemId, BookingStatus status, LocalDateTime end,
+                                                            LocalDateTime start);
 
-    List<Booking> findAllByItemIdAndStatus(long itemId, BookingStatus status, Pageable pageable);
+    List<Booking> findAllByItemIdInAndStatusAndStartBeforeAndEndAfter(List<Long> itemIds, BookingStatus status,
+                                                                     LocalDateTime end, LocalDateTime start);
 
     Optional<Booking> findFirstByItemIdAndBookerIdAndStatusAndEndBefore(long itemId, long bookerId,
                                                                         BookingStatus status, LocalDateTime end);
+
+    @Query(value = OUTPUT_DTO + " where b.id = :bookingId")
+    Optional<OutputBookingDto> findOutputDtoById(@Param("bookingId") long bookingId);
+
+    @Query(value = "select b from Booking b where b.booker.id = :bookerId and b.status in :statuses " +
+            " and b.start > :dateTime and b.end > :dateTime order by b.start asc, b.id asc")
+    List<Booking> findNextBookingsOfBooker(@Param("bookerId") long bookerId,
+                                           @Param("statuses") Collection<BookingStatus> statuses,
+                                           @Param("dateTime") LocalDateTime dateTime, Pageable pageable);
+
+    @Query(value = "select b from Booking b join b.item i where i.owner.id = :ownerId and b.status in :statuses " +
+            " and b.start > :dateTime and b.end > :dateTime order by b.start asc, b.id asc")
+    List<Booking> findNextBookingsOfOwner(@Param("ownerId") long ownerId,
+                                          @Param("statuses") Collection<BookingStatus> statuses,
+                                          @Param("dateTime") LocalDateTime dateTime, Pageable pageable);
+
+    @Query(value = "select new ru.practicum.shareit.booking.dto.BookingStatusCount(b.booker.id, b.status, count(b)) " +
+            " from Booking b where b.booker.id in :bookerIds group by b.booker.id, b.status")
+    List<BookingStatusCount> countByBookers(@Param("bookerIds") Collection<Long> bookerIds);
+
+    @Query(value = "select new ru.practicum.shareit.booking.dto.BookingStatusCount(i.owner.id, b.status, count(b)) " +
+            " from Booking b join b.item i where i.owner.id in :ownerIds group by i.owner.id, b.status")
+    List<BookingStatusCount> countByOwners(@Param("ownerIds") Collection<Long> ownerIds);
+
+    @Query(value = "select distinct b.booker.id from Booking b where b.item.id = :itemId")
+    List<Long> findBookerIdsOfItem(@Param("itemId") long itemId);
+
+    @Query(value = "select distinct b.booker.id from Booking b join b.item i where i.owner.id = :ownerId")
+    List<Long> findBookerIdsOfOwner(@Param("ownerId") long ownerId);
+
+    @Query(value = "select distinct i.owner.id from Booking b join b.item i where b.booker.id = :bookerId")
+    List<Long> findOwnerIdsOfBooker(@Param("bookerId") long bookerId);
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+    /**
+     * One page of the bookings that satisfy the specification, ordered by start desc, id desc.
+     */
+    List<OutputBookingDto> findPage(Specification<Booking> specification, int offset, int size);
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * Rows are selected straight into OutputBookingDto like the export queries of BookingRepository. Keyset pages
+ * pass {@link BookingSpecifications#after} with offset 0: the cursor row is the last one of the previous page.
+ */
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OutputBookingDto> findPage(Specification<Booking> specification, int offset, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OutputBookingDto> query = cb.createQuery(OutputBookingDto.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, Item> item = BookingSpecifications.join(booking, "item");
+        Join<Booking, User> booker = BookingSpecifications.join(booking, "booker");
+
+        Predicate where = specification.toPredicate(booking, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.select(cb.construct(OutputBookingDto.class, booking.get("id"), booking.get("start"), booking.get("end"),
+                        booking.get("status"), item.get("id"), item.get("name"), item.get("description"),
+                        item.get("available"), item.get("request").get("id"), booker.get("id"), booker.get("name"),
+                        booker.get("email")))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(size)
+                .getResultList();
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.pagination.Cursor;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+
+/**
+ * Filters of the booking lists, combined with {@link Specification#and} into the where clause of
+ * {@link BookingRepositoryCustom#findPage}. They reuse the joins the page query already has, so any combination
+ * is still one select over BOOKINGS, ITEMS and USERS.
+ */
+public final class BookingSpecifications {
+    private BookingSpecifications() {
+    }
+
+    public static Specification<Booking> ofBooker(long bookerId) {
+        return (booking, query, cb) -> cb.equal(join(booking, "booker").get("id"), bookerId);
+    }
+
+    public static Specification<Booking> ofOwner(long ownerId) {
+        return (booking, query, cb) -> cb.equal(join(booking, "item").get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Booking> ofItem(long itemId) {
+        return (booking, query, cb) -> cb.equal(join(booking, "item").get("id"), itemId);
+    }
+
+    /**
+     * Bookings in the state at the given moment. FUTURE also says that the booking ends after it, like the
+     * other queries for bookings that start later, so PostgreSQL can skip the old partitions.
+     */
+    public static Specification<Booking> inState(State state, LocalDateTime now) {
+        switch (state) {
+            case CURRENT:
+                return (booking, query, cb) -> cb.and(
+                        cb.lessThan(booking.get("start"), now),
+                        cb.greaterThan(booking.get("end"), now));
+            case PAST:
+                return (booking, query, cb) -> cb.lessThan(booking.get("end"), now);
+            case FUTURE:
+                return (booking, query, cb) -> cb.and(
+                        cb.greaterThan(booking.get("start"), now),
+                        cb.greaterThan(booking.get("end"), now));
+            case WAITING:
+                return hasStatus(BookingStatus.WAITING);
+            case REJECTED:
+                return hasStatus(BookingStatus.REJECTED);
+            case EXPIRED:
+                return hasStatus(BookingStatus.EXPIRED);
+            default:
+                return (booking, query, cb) -> cb.conjunction();
+        }
+    }
+
+    /**
+     * Bookings that overlap the period; either bound may be {@code null} for an open period.
+     */
+    public static Specification<Booking> overlapping(LocalDateTime from, LocalDateTime to) {
+        return (booking, query, cb) -> {
+            if (from == null) {
+                return to == null ? cb.conjunction() : cb.lessThan(booking.get("start"), to);
+            }
+            return to == null
+                    ? cb.greaterThan(booking.get("end"), from)
+                    : cb.and(cb.greaterThan(booking.get("end"), from), cb.lessThan(booking.get("start"), to));
+        };
+    }
+
+    /**
+     * Rows after the cursor in the order of the pages, start desc, id desc.
+     */
+    public static Specification<Booking> after(Cursor cursor) {
+        LocalDateTime start = cursor.getKeyAsDateTime();
+        return (booking, query, cb) -> cb.or(
+                cb.lessThan(booking.get("start"), start),
+                cb.and(cb.equal(booking.get("start"), start), cb.lessThan(booking.get("id"), cursor.getId())));
+    }
+
+    private static Specification<Booking> hasStatus(BookingStatus status) {
+        return (booking, query, cb) -> cb.equal(booking.get("status"), status);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Join<Booking, T> join(Root<Booking> booking, String attribute) {
+        for (Join<Booking, ?> join : booking.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute) && join.getJoinType() == JoinType.INNER) {
+                return (Join<Booking, T>) join;
+            }
+        }
+        return booking.join(attribute, JoinType.INNER);
+    }
+}
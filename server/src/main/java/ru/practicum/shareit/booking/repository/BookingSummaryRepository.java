@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingSummary;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookingSummaryRepository extends JpaRepository<BookingSummary, BookingSummary.Key> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select s from BookingSummary s where s.userId = :userId and s.role = :role")
+    Optional<BookingSummary> findByIdForUpdate(@Param("userId") long userId, @Param("role") BookingRole role);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select s from BookingSummary s where s.role = :role and s.userId in :userIds order by s.userId")
+    List<BookingSummary> findAllByIdForUpdate(@Param("role") BookingRole role,
+                                              @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Counters are changed in place so concurrent bookings of one owner's items do not overwrite each other.
+     */
+    @Modifying
+    @Query(value = "update BookingSummary s set s.waiting = s.waiting + :waiting, " +
+            " s.approved = s.approved + :approved, s.rejected = s.rejected + :rejected, " +
+            " s.canceled = s.canceled + :canceled, s.expired = s.expired + :expired " +
+            " where s.userId = :userId and s.role = :role")
+    int addCounts(@Param("userId") long userId, @Param("role") BookingRole role, @Param("waiting") long waiting,
+                  @Param("approved") long approved, @Param("rejected") long rejected,
+                  @Param("canceled") long canceled, @Param("expired") long expired);
+
+    /**
+     * Takes the booking as the next one if it starts before the cached one; a stale cache (start in the past)
+     * is left for the next read to look up.
+     */
+    @Modifying
+    @Query(value = "update BookingSummary s set s.nextBookingId = :bookingId, s.nextStart = :start " +
+            " where s.userId = :userId and s.role = :role and (s.nextStart is null or s.nextStart > :start)")
+    int offerNextBooking(@Param("userId") long userId, @Param("role") BookingRole role,
+                         @Param("bookingId") long bookingId, @Param("start") LocalDateTime start);
+
+    @Modifying
+    @Query(value = "update BookingSummary s set s.nextStart = :unknown where s.nextBookingId = :bookingId " +
+            " and s.userId in :userIds")
+    int forgetNextBooking(@Param("userIds") Collection<Long> userIds, @Param("bookingId") long bookingId,
+                          @Param("unknown") LocalDateTime unknown);
+
+    @Modifying
+    @Query(value = "update BookingSummary s set s.nextBookingId = :bookingId, s.nextStart = :start " +
+            " where s.userId = :userId and s.role = :role")
+    int setNextBooking(@Param("userId") long userId, @Param("role") BookingRole role,
+                       @Param("bookingId") Long bookingId, @Param("start") LocalDateTime start);
+
+    @Modifying
+    @Query(value = "update BookingSummary s set s.waiting = :waiting, s.approved = :approved, " +
+            " s.rejected = :rejected, s.canceled = :canceled, s.expired = :expired, s.nextStart = :unknown " +
+            " where s.userId = :userId and s.role = :role")
+    int setCounts(@Param("userId") long userId, @Param("role") BookingRole role, @Param("waiting") long waiting,
+                  @Param("approved") long approved, @Param("rejected") long rejected,
+                  @Param("canceled") long canceled, @Param("expired") long expired,
+                  @Param("unknown") LocalDateTime unknown);
+}
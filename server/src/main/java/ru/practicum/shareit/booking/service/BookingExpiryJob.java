@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Moves WAITING bookings whose start has passed to EXPIRED, chunk by chunk, each chunk in its own transaction,
+ * until a chunk comes back short. Rows per run are recorded as {@code shareit.booking.expiry.rows}, run time
+ * as {@code shareit.booking.expiry}.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    private final BookingService bookingService;
+    private final int batchSize;
+    private final DistributionSummary rows;
+    private final Timer runs;
+
+    public BookingExpiryJob(BookingService bookingService, MeterRegistry meterRegistry,
+                            @Value("${shareit.booking.expiry.batch-size}") int batchSize) {
+        this.bookingService = bookingService;
+        this.batchSize = batchSize;
+        this.rows = DistributionSummary.builder("shareit.booking.expiry.rows")
+                .description("WAITING bookings moved to EXPIRED per run")
+                .baseUnit("rows")
+                .register(meterRegistry);
+        this.runs = Timer.builder("shareit.booking.expiry").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval-ms}",
+            initialDelayString = "${shareit.booking.expiry.interval-ms}")
+    public void expireWaitingBookings() {
+        Timer.Sample sample = Timer.start();
+        LocalDateTime now = LocalDateTime.now();
+        long expired = 0;
+        int chunk;
+        do {
+            chunk = bookingService.expireWaitingBookings(now, batchSize);
+            expired += chunk;
+        } while (chunk == batchSize);
+        sample.stop(runs);
+        rows.record(expired);
+        if (expired > 0) {
+            log.info("{} бронирований без ответа переведены в статус EXPIRED", expired);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingPartition;
+import ru.practicum.shareit.booking.repository.BookingPartitionRepository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly END_BOOKING partitions of BOOKINGS on PostgreSQL: keeps {@code months-ahead} months
+ * created so new bookings do not land in the default partition, and moves partitions whose bookings all ended
+ * more than {@code hot-months} ago to {@code cold-tablespace}, when one is set. Cold partitions stay attached,
+ * so PAST and ALL still read them. Months are created at startup and on {@code cron}; each step is its own
+ * transaction.
+ * <p>
+ * Moving a partition blocks most queries on BOOKINGS while it is rewritten (see
+ * {@link BookingPartitionRepository#moveTableToTablespace}), so it runs only on {@code cron}, which should fall
+ * in quiet hours, never at startup. The indexes are moved one per transaction before the table, which marks the
+ * partition done; a step that does not get its lock within {@code lock-timeout-ms} is tried again up to
+ * {@code lock-attempts} times and otherwise left to the next run. DETACH PARTITION CONCURRENTLY, which would keep
+ * the partition out of the queries' way, is refused by PostgreSQL while BOOKINGS has a default partition.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.partitions.enabled", havingValue = "true")
+public class BookingPartitionJob {
+    private static final Pattern TABLESPACE_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final BookingPartitionRepository partitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int hotMonths;
+    private final String coldTablespace;
+    private final long lockTimeoutMs;
+    private final int lockAttempts;
+
+    public BookingPartitionJob(BookingPartitionRepository partitionRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${shareit.booking.partitions.months-ahead}") int monthsAhead,
+                               @Value("${shareit.booking.partitions.hot-months}") int hotMonths,
+                               @Value("${shareit.booking.partitions.cold-tablespace}") String coldTablespace,
+                               @Value("${shareit.booking.partitions.lock-timeout-ms}") long lockTimeoutMs,
+                               @Value("${shareit.booking.partitions.lock-attempts}") int lockAttempts) {
+        if (!coldTablespace.isEmpty() && !TABLESPACE_NAME.matcher(coldTablespace).matches()) {
+            throw new IllegalArgumentException(String.format("недопустимое имя табличного пространства: %s",
+                    coldTablespace));
+        }
+        this.partitionRepository = partitionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.hotMonths = hotMonths;
+        this.coldTablespace = coldTablespace;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.lockAttempts = lockAttempts;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createMonthsAtStartup() {
+        createMonths(YearMonth.now());
+    }
+
+    @Scheduled(cron = "${shareit.booking.partitions.cron}")
+    public void maintainPartitions() {
+        YearMonth current = YearMonth.now();
+        createMonths(current);
+        if (coldTablespace.isEmpty()) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(transactionTemplate.execute(
+                status -> partitionRepository.tablespaceExists(coldTablespace)))) {
+            log.warn("табличное пространство {} не найдено, партиции бронирований не архивируются", coldTablespace);
+            return;
+        }
+        LocalDateTime hotFrom = current.minusMonths(hotMonths).atDay(1).atStartOfDay();
+        for (BookingPartition partition : partitionRepository.findPartitions()) {
+            boolean cold = partition.getUpperBound() != null && !partition.getUpperBound().isAfter(hotFrom);
+            if (cold && !coldTablespace.equals(partition.getTablespace())
+                    && !moveToColdTablespace(partition.getName())) {
+                return;
+            }
+        }
+    }
+
+    private void createMonths(YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> partitionRepository.createMonth(month)))) {
+                log.info("создана партиция бронирований за {}", month);
+            }
+        }
+    }
+
+    private boolean moveToColdTablespace(String partition) {
+        for (String index : partitionRepository.findIndexes(partition)) {
+            if (!withLockAttempts(index, () ->
+                    partitionRepository.moveIndexToTablespace(index, coldTablespace, lockTimeoutMs))) {
+                return false;
+            }
+        }
+        if (!withLockAttempts(partition, () ->
+                partitionRepository.moveTableToTablespace(partition, coldTablespace, lockTimeoutMs))) {
+            return false;
+        }
+        log.info("партиция {} перенесена в табличное пространство {}", partition, coldTablespace);
+        return true;
+    }
+
+    /**
+     * Runs the step in a transaction of its own until it gets its lock, pausing {@code lock-timeout-ms} between
+     * attempts. Returns false when all attempts failed; the move is then left to the next run.
+     */
+    private boolean withLockAttempts(String relation, Runnable step) {
+        for (int attempt = 1; attempt <= lockAttempts; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> step.run());
+                return true;
+            } catch (CannotAcquireLockException e) {
+                log.debug("{} занят, попытка {} из {}", relation, attempt, lockAttempts);
+            }
+            if (attempt == lockAttempts) {
+                break;
+            }
+            try {
+                Thread.sleep(lockTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        log.warn("{} не перенесён в табличное пространство {}: блокировка не получена за {} попыток, " +
+                "перенос отложен до следующего запуска", relation, coldTablespace, lockAttempts);
+        return false;
+    }
+}
@@ -1,21 +1,41 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingFilter;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.OutputBookingDto;
 import ru.practicum.shareit.booking.dto.InputBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.export.ExportTarget;
+import ru.practicum.shareit.pagination.Cursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BookingService {
     OutputBookingDto addBooking(InputBookingDto bookingDto, Long userId);
 
+    List<OutputBookingDto> addBookings(List<InputBookingDto> bookingDtos, Long userId);
+
     OutputBookingDto approveBooking(Long bookingId, Long userId, Boolean approve);
 
     Booking getBookingById(Long bookingId, Long userId);
 
     OutputBookingDto getBookingDtoById(Long bookingId, Long userId);
 
-    List<OutputBookingDto> getBookingsOfBooker(String stateText, Long bookerId, int from, int size);
+    List<OutputBookingDto> getBookingsOfBooker(String stateText, Long bookerId, BookingFilter filter, int from, int size,
+                                               Cursor after);
+
+    List<OutputBookingDto> getBookingsOfOwner(String stateText, Long ownerId, BookingFilter filter, int from, int size,
+                                              Cursor after);
+
+    void exportBookingsOfBooker(long bookerId, ExportFormat format, ExportTarget target);
+
+    void exportBookingsOfOwner(long ownerId, ExportFormat format, ExportTarget target);
+
+    BookingSummaryDto getSummaryOfBooker(long bookerId);
+
+    BookingSummaryDto getSummaryOfOwner(long ownerId);
 
-    List<OutputBookingDto> getBookingsOfOwner(String stateText, Long ownerId, int from, int size);
+    int expireWaitingBookings(LocalDateTime startedBefore, int limit);
 }
@@ -2,62 +2,95 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingFilter;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.dto.OutputBookingDto;
 import ru.practicum.shareit.booking.dto.InputBookingDto;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventType;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.export.ExportColumn;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.export.ExportTarget;
+import ru.practicum.shareit.export.ExportWriter;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxPublisher;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
-
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final List<ExportColumn<OutputBookingDto>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", OutputBookingDto::getId),
+            ExportColumn.of("start", OutputBookingDto::getStart),
+            ExportColumn.of("end", OutputBookingDto::getEnd),
+            ExportColumn.of("status", OutputBookingDto::getStatus),
+            ExportColumn.of("itemId", booking -> booking.getItem().getId()),
+            ExportColumn.of("itemName", booking -> booking.getItem().getName()),
+            ExportColumn.of("bookerId", booking -> booking.getBooker().getId()),
+            ExportColumn.of("bookerName", booking -> booking.getBooker().getName()));
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final ExportWriter exportWriter;
+    private final BookingSummaryService bookingSummaryService;
+    private final OutboxPublisher outboxPublisher;
 
     private User getUserById(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException(String.format("пользователь с id %d не найден", userId)));
     }
 
-    private Item getItemById(Long itemId) {
-        return itemRepository.findById(itemId)
+    private Item getItemByIdForUpdate(Long itemId) {
+        return itemRepository.findByIdForUpdate(itemId)
                 .orElseThrow(() -> new NotFoundException(String.format("вещь с id %d не найдена", itemId)));
     }
 
-    public void existsUser(Long userId) {
-        if (!userRepository.existsUserById(userId)) {
-            throw new InternalServerError(String.format("User with id %d not found", userId));
+    private void checkItemIsFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (bookingRepository.existsByItemIdAndStatusAndStartBeforeAndEndAfter(itemId, BookingStatus.APPROVED,
+                end, start)) {
+            throw itemIsBooked(itemId, start, end);
         }
     }
 
-    @Transactional
-    public OutputBookingDto addBooking(InputBookingDto bookingDto, Long userId) {
-        existsUser(userId);
-        Long itemId = bookingDto.getItemId();
-        Item item = getItemById(itemId);
+    private static ValidationException itemIsBooked(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return new ValidationException(String.format("вещь с id: %d уже забронирована на период с %s по %s",
+                itemId, start, end));
+    }
+
+    private Booking newBooking(InputBookingDto bookingDto, Item item, User booker) {
         User owner = item.getOwner();
         if (owner == null) {
-            throw new AccessException(String.format("вещь с id = %d не имеет владельца.", itemId));
+            throw new AccessException(String.format("вещь с id = %d не имеет владельца.", item.getId()));
         }
-        if (owner.getId().equals(userId)) {
-            throw new AccessException(String.format("Booker не может быть владельцем вещи id: %d", userId));
+        if (owner.getId().equals(booker.getId())) {
+            throw new AccessException(String.format("Booker не может быть владельцем вещи id: %d", booker.getId()));
         }
         LocalDateTime start = bookingDto.getStart();
         LocalDateTime end = bookingDto.getEnd();
@@ -65,22 +98,94 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException(String.format("неверное время начала бронирования = %s и конца = %s", start, end));
         }
         if (!item.getAvailable()) {
-            throw new ValidationException(String.format("вещь с id: %d не доступна", userId));
+            throw new ValidationException(String.format("вещь с id: %d не доступна", booker.getId()));
         }
-        Booking booking = Booking.builder()
+        return Booking.builder()
                 .start(start)
                 .end(end)
                 .item(item)
-                .booker(getUserById(userId))
+                .booker(booker)
                 .status(BookingStatus.WAITING)
                 .build();
-        return BookingMapper.toBookingDtoRequest(bookingRepository.save(booking));
+    }
+
+    private void publish(Booking booking, BookingEventType type) {
+        outboxPublisher.publish(BookingEvent.TOPIC, booking.getId(), BookingMapper.toBookingEvent(booking, type));
+    }
+
+    public void existsUser(Long userId) {
+        if (!userRepository.existsUserById(userId)) {
+            throw new InternalServerError(String.format("User with id %d not found", userId));
+        }
+    }
+
+    @Transactional
+    public OutputBookingDto addBooking(InputBookingDto bookingDto, Long userId) {
+        existsUser(userId);
+        Item item = getItemByIdForUpdate(bookingDto.getItemId());
+        Booking booking = newBooking(bookingDto, item, getUserById(userId));
+        checkItemIsFree(item.getId(), booking.getStart(), booking.getEnd());
+        Booking saved = bookingRepository.save(booking);
+        bookingSummaryService.bookingsAdded(List.of(saved));
+        publish(saved, BookingEventType.CREATED);
+        return BookingMapper.toBookingDtoRequest(saved);
+    }
+
+    /**
+     * Same checks as addBooking, but items are locked with one query and approved bookings that may overlap
+     * are read with another, so the query count does not grow with the batch. Inserts go out in JDBC batches.
+     */
+    @Transactional
+    public List<OutputBookingDto> addBookings(List<InputBookingDto> bookingDtos, Long userId) {
+        if (bookingDtos.isEmpty()) {
+            return List.of();
+        }
+        existsUser(userId);
+        User booker = getUserById(userId);
+        List<Long> itemIds = bookingDtos.stream()
+                .map(InputBookingDto::getItemId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Item> items = itemRepository.findAllByIdForUpdate(itemIds)
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<Booking> bookings = new ArrayList<>(bookingDtos.size());
+        for (InputBookingDto bookingDto : bookingDtos) {
+            Item item = items.get(bookingDto.getItemId());
+            if (item == null) {
+                throw new NotFoundException(String.format("вещь с id %d не найдена", bookingDto.getItemId()));
+            }
+            bookings.add(newBooking(bookingDto, item, booker));
+        }
+        LocalDateTime from = bookings.stream().map(Booking::getStart).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = bookings.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).orElseThrow();
+        Map<Long, List<Booking>> approved = bookingRepository.findAllByItemIdInAndStatusAndStartBeforeAndEndAfter(
+                        itemIds, BookingStatus.APPROVED, to, from)
+                .stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
+        for (Booking booking : bookings) {
+            Long itemId = booking.getItem().getId();
+            boolean overlaps = approved.getOrDefault(itemId, List.of())
+                    .stream()
+                    .anyMatch(other -> other.getStart().isBefore(booking.getEnd())
+                            && other.getEnd().isAfter(booking.getStart()));
+            if (overlaps) {
+                throw itemIsBooked(itemId, booking.getStart(), booking.getEnd());
+            }
+        }
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+        bookingSummaryService.bookingsAdded(saved);
+        for (Booking booking : saved) {
+            publish(booking, BookingEventType.CREATED);
+        }
+        return BookingMapper.toBookingDtoRequestsList(saved);
     }
 
     @Transactional
     public OutputBookingDto approveBooking(Long bookingId, Long userId, Boolean approve) {
         existsUser(userId);
-        Booking booking = getBookingById(bookingId, userId);
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
+                .orElseThrow(() -> new NotFoundException(String.format("бронирование с id: %d не найдено", bookingId)));
         Long itemOwnerId = getItemOwnerId(booking);
         Long bookerId = booking.getBooker().getId();
         if (!((userId.equals(itemOwnerId)) || (userId.equals(bookerId)))) {
@@ -91,13 +196,47 @@ public class BookingServiceImpl implements BookingService {
             throw new AccessException(String.format("User id:%s cannot change Approve booking id:%s",
                     userId, booking.getId()));
         }
-        if (booking.getStatus().equals(BookingStatus.APPROVED)) {
+        if (booking.getStatus().equals(BookingStatus.APPROVED) || booking.getStatus().equals(BookingStatus.EXPIRED)) {
             throw new ArgumentException(String.format("Booking with id: %d already have status %s",
-                    bookingId, BookingStatus.APPROVED));
+                    bookingId, booking.getStatus()));
         }
+        if (approve) {
+            Long itemId = getItemByIdForUpdate(booking.getItem().getId()).getId();
+            checkItemIsFree(itemId, booking.getStart(), booking.getEnd());
+        }
+        BookingStatus previousStatus = booking.getStatus();
         BookingStatus bookingStatus = approve ? BookingStatus.APPROVED : BookingStatus.REJECTED;
         booking.setStatus(bookingStatus);
-        return BookingMapper.toBookingDtoRequest(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        bookingSummaryService.statusChanged(saved, previousStatus);
+        publish(saved, approve ? BookingEventType.APPROVED : BookingEventType.REJECTED);
+        return BookingMapper.toBookingDtoRequest(saved);
+    }
+
+    /**
+     * Moves one chunk of WAITING bookings that have already started to EXPIRED with a single UPDATE by ids and
+     * returns its size. Owners of the items are loaded with one query up front, the bulk update then clears
+     * the persistence context.
+     */
+    @Transactional
+    public int expireWaitingBookings(LocalDateTime startedBefore, int limit) {
+        List<Booking> bookings = bookingRepository.findStartedForUpdate(BookingStatus.WAITING, startedBefore,
+                PageRequest.of(0, limit));
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+        itemRepository.findAllById(bookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet()));
+        bookings.forEach(booking -> Hibernate.initialize(booking.getItem()));
+        bookingRepository.setStatus(bookings.stream().map(Booking::getId).collect(Collectors.toList()),
+                BookingStatus.EXPIRED);
+        bookings.forEach(booking -> booking.setStatus(BookingStatus.EXPIRED));
+        bookingSummaryService.bookingsExpired(bookings);
+        for (Booking booking : bookings) {
+            publish(booking, BookingEventType.EXPIRED);
+        }
+        return bookings.size();
     }
 
     public Booking getBookingById(Long bookingId, Long userId) {
@@ -122,6 +261,7 @@ public class BookingServiceImpl implements BookingService {
         return itemOwner.getId();
     }
 
+    @Transactional(readOnly = true)
     public OutputBookingDto getBookingDtoById(Long bookingId, Long userId) {
         Booking booking = getBookingById(bookingId, userId);
         existsUser(userId);
@@ -135,62 +275,65 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Transactional(readOnly = true)
-    public List<OutputBookingDto> getBookingsOfBooker(String stateText, Long bookerId, int from, int size) {
+    public List<OutputBookingDto> getBookingsOfBooker(String stateText, Long bookerId, BookingFilter filter,
+                                                      int from, int size, Cursor after) {
         existsUser(bookerId);
+        return findPage(BookingSpecifications.ofBooker(bookerId), stateText, filter, from, size, after);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OutputBookingDto> getBookingsOfOwner(String stateText, Long ownerId, BookingFilter filter,
+                                                     int from, int size, Cursor after) {
+        existsUser(ownerId);
+        return findPage(BookingSpecifications.ofOwner(ownerId), stateText, filter, from, size, after);
+    }
+
+    private List<OutputBookingDto> findPage(Specification<Booking> ofUser, String stateText, BookingFilter filter,
+                                            int from, int size, Cursor after) {
         State state = State.getState(stateText);
-        Pageable pageable = PageRequest.of(size == 0 ? 0 : from / size, size, BookingRepository.SORT_BY_START_DESC);
-        switch (state) {
-            case WAITING:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByBookerIdAndStatus(bookerId, BookingStatus.WAITING, pageable));
-            case REJECTED:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByBookerIdAndStatus(bookerId, BookingStatus.REJECTED, pageable));
-            case PAST:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByBookerIdAndEndBefore(bookerId, LocalDateTime.now(), pageable));
-            case FUTURE:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByBookerIdAndStartAfter(bookerId, LocalDateTime.now(), pageable));
-            case CURRENT:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfter(bookerId, LocalDateTime.now(),
-                                pageable));
-            case ALL:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByBookerId(bookerId, pageable));
-            default:
-                throw new ArgumentException("Unknown state: UNSUPPORTED_STATUS");
+        Specification<Booking> specification = ofUser.and(BookingSpecifications.inState(state, LocalDateTime.now()));
+        if (filter.getItemId() != null) {
+            specification = specification.and(BookingSpecifications.ofItem(filter.getItemId()));
+        }
+        LocalDateTime rangeStart = filter.getRangeStart();
+        LocalDateTime rangeEnd = filter.getRangeEnd();
+        if (rangeStart != null && rangeEnd != null && !rangeStart.isBefore(rangeEnd)) {
+            throw new ArgumentException(String.format("неверный период: с %s по %s", rangeStart, rangeEnd));
+        }
+        if (rangeStart != null || rangeEnd != null) {
+            specification = specification.and(BookingSpecifications.overlapping(rangeStart, rangeEnd));
+        }
+        if (after != null) {
+            return bookingRepository.findPage(specification.and(BookingSpecifications.after(after)), 0, size);
         }
+        return bookingRepository.findPage(specification, from, size);
     }
 
     @Transactional(readOnly = true)
-    public List<OutputBookingDto> getBookingsOfOwner(String stateText, Long ownerId, int from, int size) {
+    public void exportBookingsOfBooker(long bookerId, ExportFormat format, ExportTarget target) {
+        existsUser(bookerId);
+        try (Stream<OutputBookingDto> bookings = bookingRepository.streamAllByBookerId(bookerId)) {
+            exportWriter.write(format, bookings, EXPORT_COLUMNS, target);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportBookingsOfOwner(long ownerId, ExportFormat format, ExportTarget target) {
         existsUser(ownerId);
-        State state = State.getState(stateText);
-        Pageable pageable = PageRequest.of(size == 0 ? 0 : from / size, size, BookingRepository.SORT_BY_START_DESC);
-        switch (state) {
-            case WAITING:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByOwnerIdAndStatus(ownerId, BookingStatus.WAITING, pageable));
-            case REJECTED:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByOwnerIdAndStatus(ownerId, BookingStatus.REJECTED, pageable));
-            case PAST:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByOwnerIdAndEndBefore(ownerId, LocalDateTime.now(), pageable));
-            case FUTURE:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByOwnerIdAndStartAfter(ownerId, LocalDateTime.now(), pageable));
-            case CURRENT:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByOwnerIdAndStartBeforeAndEndAfter(ownerId, LocalDateTime.now(),
-                                pageable));
-            case ALL:
-                return BookingMapper.toBookingDtoRequestsList(
-                        bookingRepository.findAllByOwnerId(ownerId, pageable));
-            default:
-                throw new ArgumentException("Unknown state: UNSUPPORTED_STATUS");
-        }
-    }
-}
\ No newline at end of file
+        try (Stream<OutputBookingDto> bookings = bookingRepository.streamAllByOwnerId(ownerId)) {
+            exportWriter.write(format, bookings, EXPORT_COLUMNS, target);
+        }
+    }
+
+    @Transactional
+    public BookingSummaryDto getSummaryOfBooker(long bookerId) {
+        existsUser(bookerId);
+        return bookingSummaryService.getSummary(bookerId, BookingRole.BOOKER);
+    }
+
+    @Transactional
+    public BookingSummaryDto getSummaryOfOwner(long ownerId) {
+        existsUser(ownerId);
+        return bookingSummaryService.getSummary(ownerId, BookingRole.OWNER);
+    }
+}
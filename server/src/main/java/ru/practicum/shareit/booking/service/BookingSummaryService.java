@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BookingSummaryService {
+    void createSummaries(long userId);
+
+    void bookingsAdded(List<Booking> bookings);
+
+    void statusChanged(Booking booking, BookingStatus from);
+
+    void bookingsExpired(List<Booking> bookings);
+
+    void recount(Collection<Long> bookerIds, Collection<Long> ownerIds);
+
+    BookingSummaryDto getSummary(long userId, BookingRole role);
+}
@@ -0,0 +1,192 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingStatusCount;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingSummary;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSummaryRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@link BookingSummary} rows in step with the bookings. Every change runs in the transaction of the
+ * booking change itself; rows are touched booker first, then owners in id order, so concurrent bookings
+ * cannot lock them in opposite orders.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingSummaryServiceImpl implements BookingSummaryService {
+    private static final Set<BookingStatus> UPCOMING = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final Pageable FIRST = PageRequest.of(0, 1);
+    private static final Comparator<Booking> BY_START = Comparator.comparing(Booking::getStart)
+            .thenComparing(Booking::getId);
+
+    private final BookingSummaryRepository summaryRepository;
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+
+    @Transactional
+    public void createSummaries(long userId) {
+        for (BookingRole role : BookingRole.values()) {
+            entityManager.persist(BookingSummary.builder().userId(userId).role(role).build());
+        }
+    }
+
+    @Transactional
+    public void bookingsAdded(List<Booking> bookings) {
+        LocalDateTime now = LocalDateTime.now();
+        bookingsAdded(BookingRole.BOOKER, bookings, booking -> booking.getBooker().getId(), now);
+        bookingsAdded(BookingRole.OWNER, bookings, booking -> booking.getItem().getOwner().getId(), now);
+    }
+
+    private void bookingsAdded(BookingRole role, List<Booking> bookings, Function<Booking, Long> userOf,
+                               LocalDateTime now) {
+        Map<Long, List<Booking>> bookingsOfUsers = bookings.stream()
+                .collect(Collectors.groupingBy(userOf, TreeMap::new, Collectors.toList()));
+        bookingsOfUsers.forEach((userId, userBookings) -> {
+            long[] counts = new long[BookingStatus.values().length];
+            userBookings.forEach(booking -> counts[booking.getStatus().ordinal()]++);
+            addCounts(userId, role, counts);
+            userBookings.stream()
+                    .filter(booking -> isUpcoming(booking, now))
+                    .min(BY_START)
+                    .ifPresent(next -> summaryRepository.offerNextBooking(userId, role, next.getId(),
+                            next.getStart()));
+        });
+    }
+
+    @Transactional
+    public void statusChanged(Booking booking, BookingStatus from) {
+        BookingStatus to = booking.getStatus();
+        if (from == to) {
+            return;
+        }
+        long[] counts = new long[BookingStatus.values().length];
+        counts[from.ordinal()]--;
+        counts[to.ordinal()]++;
+        long bookerId = booking.getBooker().getId();
+        long ownerId = booking.getItem().getOwner().getId();
+        addCounts(bookerId, BookingRole.BOOKER, counts);
+        addCounts(ownerId, BookingRole.OWNER, counts);
+        if (UPCOMING.contains(from) && !UPCOMING.contains(to)) {
+            summaryRepository.forgetNextBooking(List.of(bookerId, ownerId), booking.getId(),
+                    BookingSummary.NEXT_BOOKING_UNKNOWN);
+        } else if (!UPCOMING.contains(from) && isUpcoming(booking, LocalDateTime.now())) {
+            summaryRepository.offerNextBooking(bookerId, BookingRole.BOOKER, booking.getId(), booking.getStart());
+            summaryRepository.offerNextBooking(ownerId, BookingRole.OWNER, booking.getId(), booking.getStart());
+        }
+    }
+
+    /**
+     * Expired bookings have already started, so a summary that still points at one of them as the next booking
+     * is stale anyway and gets looked up on its next read; only the counters change.
+     */
+    @Transactional
+    public void bookingsExpired(List<Booking> bookings) {
+        bookingsExpired(BookingRole.BOOKER, bookings, booking -> booking.getBooker().getId());
+        bookingsExpired(BookingRole.OWNER, bookings, booking -> booking.getItem().getOwner().getId());
+    }
+
+    private void bookingsExpired(BookingRole role, List<Booking> bookings, Function<Booking, Long> userOf) {
+        Map<Long, Long> expiredOfUsers = bookings.stream()
+                .collect(Collectors.groupingBy(userOf, TreeMap::new, Collectors.counting()));
+        expiredOfUsers.forEach((userId, expired) -> {
+            long[] counts = new long[BookingStatus.values().length];
+            counts[BookingStatus.WAITING.ordinal()] = -expired;
+            counts[BookingStatus.EXPIRED.ordinal()] = expired;
+            addCounts(userId, role, counts);
+        });
+    }
+
+    /**
+     * Counts the summaries of the given users again, for changes that remove bookings wholesale (deleting an item
+     * or a user cascades to its bookings in the database).
+     */
+    @Transactional
+    public void recount(Collection<Long> bookerIds, Collection<Long> ownerIds) {
+        recount(BookingRole.BOOKER, bookerIds, bookingRepository::countByBookers);
+        recount(BookingRole.OWNER, ownerIds, bookingRepository::countByOwners);
+    }
+
+    private void recount(BookingRole role, Collection<Long> userIds,
+                         Function<Collection<Long>, List<BookingStatusCount>> counter) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Long> lockedUserIds = summaryRepository.findAllByIdForUpdate(role, userIds)
+                .stream()
+                .map(BookingSummary::getUserId)
+                .collect(Collectors.toList());
+        Map<Long, long[]> counts = new TreeMap<>();
+        lockedUserIds.forEach(userId -> counts.put(userId, new long[BookingStatus.values().length]));
+        for (BookingStatusCount count : counter.apply(lockedUserIds)) {
+            counts.get(count.getUserId())[count.getStatus().ordinal()] = count.getCount();
+        }
+        counts.forEach((userId, userCounts) -> summaryRepository.setCounts(userId, role,
+                userCounts[BookingStatus.WAITING.ordinal()], userCounts[BookingStatus.APPROVED.ordinal()],
+                userCounts[BookingStatus.REJECTED.ordinal()], userCounts[BookingStatus.CANCELED.ordinal()],
+                userCounts[BookingStatus.EXPIRED.ordinal()], BookingSummary.NEXT_BOOKING_UNKNOWN));
+    }
+
+    /**
+     * Served from the user's summary row; the next booking is looked up only when the cached one has started.
+     */
+    @Transactional
+    public BookingSummaryDto getSummary(long userId, BookingRole role) {
+        BookingSummary summary = summaryRepository.findById(new BookingSummary.Key(userId, role))
+                .orElseThrow(() -> new NotFoundException(String.format("сводка бронирований пользователя с id %d " +
+                        "не найдена", userId)));
+        Long nextBookingId = summary.getNextBookingId();
+        LocalDateTime now = LocalDateTime.now();
+        if (summary.getNextStart() != null && !summary.getNextStart().isAfter(now)) {
+            nextBookingId = refreshNextBooking(userId, role, now).map(Booking::getId).orElse(null);
+        }
+        OutputBookingDto nextBooking = nextBookingId == null ? null
+                : bookingRepository.findOutputDtoById(nextBookingId).orElse(null);
+        return BookingMapper.toBookingSummaryDto(summary, nextBooking);
+    }
+
+    private Optional<Booking> refreshNextBooking(long userId, BookingRole role, LocalDateTime now) {
+        summaryRepository.findByIdForUpdate(userId, role);
+        List<BookingStatus> statuses = List.copyOf(UPCOMING);
+        List<Booking> next = role == BookingRole.BOOKER
+                ? bookingRepository.findNextBookingsOfBooker(userId, statuses, now, FIRST)
+                : bookingRepository.findNextBookingsOfOwner(userId, statuses, now, FIRST);
+        Optional<Booking> nextBooking = next.stream().findFirst();
+        summaryRepository.setNextBooking(userId, role, nextBooking.map(Booking::getId).orElse(null),
+                nextBooking.map(Booking::getStart).orElse(null));
+        return nextBooking;
+    }
+
+    private static boolean isUpcoming(Booking booking, LocalDateTime now) {
+        return UPCOMING.contains(booking.getStatus()) && booking.getStart().isAfter(now);
+    }
+
+    private void addCounts(long userId, BookingRole role, long[] counts) {
+        summaryRepository.addCounts(userId, role, counts[BookingStatus.WAITING.ordinal()],
+                counts[BookingStatus.APPROVED.ordinal()], counts[BookingStatus.REJECTED.ordinal()],
+                counts[BookingStatus.CANCELED.ordinal()], counts[BookingStatus.EXPIRED.ordinal()]);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts cache entries once the current transaction has committed. Evicting before the commit lets a read running
+ * alongside the change cache the old row again, and it stays until the entry expires; evicted after the commit,
+ * such a value is dropped. Outside a transaction the entry is evicted at once.
+ */
+@Component
+@RequiredArgsConstructor
+public class AfterCommitEviction {
+    private final CacheManager cacheManager;
+
+    public void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.evict(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.evict(key);
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the replication lag of the replica with {@code shareit.datasource.replica.lag-query}, which returns
+ * milliseconds, or {@code null} when the lag is unknown. The replica counts as fresh only while the last measured
+ * lag plus the time since the measurement stays within {@code max-lag-ms}: reads never see data older than that,
+ * even when checks stop coming, e.g. because the replica hangs. Until the first successful check and after a failed
+ * one the replica is not used.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final long maxLagNanos;
+    private volatile long freshUntil;
+    private volatile boolean fresh;
+    private volatile double lagMs = Double.NaN;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, String lagQuery, long maxLagMs, int queryTimeoutSeconds) {
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replica.setQueryTimeout(queryTimeoutSeconds);
+        this.replica.setExceptionTranslator(new SQLStateSQLExceptionTranslator());
+        this.lagQuery = lagQuery;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMs);
+        Gauge.builder("shareit.datasource.replica.lag", this, monitor -> monitor.lagMs)
+                .description("replication lag of the replica at the last check, NaN when it could not be measured")
+                .baseUnit("milliseconds")
+                .register(Metrics.globalRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.datasource.replica.check-interval-ms}")
+    public void check() {
+        long checkedAt = System.nanoTime();
+        Number lag = measureLag();
+        if (lag == null) {
+            fresh = false;
+            lagMs = Double.NaN;
+            return;
+        }
+        freshUntil = checkedAt + maxLagNanos - TimeUnit.MILLISECONDS.toNanos(lag.longValue());
+        fresh = true;
+        lagMs = lag.doubleValue();
+    }
+
+    public boolean isFresh() {
+        return fresh && System.nanoTime() - freshUntil < 0;
+    }
+
+    private Number measureLag() {
+        try {
+            Number lag = replica.queryForObject(lagQuery, Number.class);
+            if (lag == null && fresh) {
+                log.warn("задержка реплики неизвестна, чтение переведено на основную базу");
+            }
+            return lag;
+        } catch (DataAccessException e) {
+            if (fresh) {
+                log.warn("реплика недоступна, чтение переведено на основную базу: {}", e.getMostSpecificCause().getMessage());
+            }
+            return null;
+        }
+    }
+}
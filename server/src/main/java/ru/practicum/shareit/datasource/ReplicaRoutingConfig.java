@@ -0,0 +1,99 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.jdbc.DataSourceHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Replaces the auto-configured data source with a primary pool, a replica pool and the routing between them when
+ * {@code shareit.datasource.replica.enabled} is set. Flyway and the health check use the primary directly.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    /**
+     * The hikari settings are bound here rather than with @ConfigurationProperties, which would bind them after the
+     * method returns and let a configured pool-name replace the one that tells the two pools apart in the metrics.
+     */
+    @Bean
+    @FlywayDataSource
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        return configure(dataSource, environment, "spring.datasource.hikari", "primary");
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties, Environment environment,
+                                              @Value("${shareit.datasource.replica.url}") String url,
+                                              @Value("${shareit.datasource.replica.username}") String username,
+                                              @Value("${shareit.datasource.replica.password}") String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        configure(dataSource, environment, "shareit.datasource.replica.hikari", "replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${shareit.datasource.replica.lag-query}") String lagQuery,
+                                               @Value("${shareit.datasource.replica.max-lag-ms}") long maxLagMs,
+                                               @Value("${shareit.datasource.replica.check-timeout-seconds}")
+                                               int checkTimeoutSeconds) {
+        return new ReplicaLagMonitor(replicaDataSource, lagQuery, maxLagMs, checkTimeoutSeconds);
+    }
+
+    /**
+     * A user's reads stay on the primary for max-lag-ms after their write: by then a replica that is used at all
+     * has it.
+     */
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${shareit.datasource.replica.max-lag-ms}") long maxLagMs) {
+        return new ReadYourWritesFilter(Duration.ofMillis(maxLagMs));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor, ReadYourWritesFilter readYourWritesFilter) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+                replicaLagMonitor, readYourWritesFilter);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Only the primary decides whether the server is up: without the replica reads fall back to it.
+     */
+    @Bean
+    public DataSourceHealthIndicator dbHealthIndicator(@Qualifier("primaryDataSource") DataSource primaryDataSource) {
+        return new DataSourceHealthIndicator(primaryDataSource);
+    }
+
+    private static HikariDataSource configure(HikariDataSource dataSource, Environment environment, String prefix,
+                                              String poolName) {
+        Binder.get(environment).bind(prefix, Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
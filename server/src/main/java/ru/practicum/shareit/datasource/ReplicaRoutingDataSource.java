@@ -0,0 +1,104 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the primary. A read-only
+ * transaction still goes to the primary when the replica is behind by more than the allowed lag or when the user
+ * of the request has written recently. The choice is made when the connection is opened, which must therefore
+ * happen inside the transaction: the data source is used behind a LazyConnectionDataSourceProxy.
+ * <p>
+ * A transaction routed to the replica is marked as such for {@link #isReplicaTransaction()}.
+ * <p>
+ * Each choice is counted as {@code shareit.datasource.routes} with the target and the reason. The meters go to the
+ * global registry: the data source is created before the application's MeterRegistry, which binds its pool metrics.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target { PRIMARY, REPLICA }
+
+    private static final Object REPLICA_TRANSACTION = new Object();
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesFilter readYourWrites;
+    private final Counter writes;
+    private final Counter recentWrites;
+    private final Counter lagging;
+    private final Counter reads;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    ReadYourWritesFilter readYourWrites) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWrites = readYourWrites;
+        this.writes = route(Target.PRIMARY, "read-write");
+        this.recentWrites = route(Target.PRIMARY, "read-your-writes");
+        this.lagging = route(Target.PRIMARY, "replica-lag");
+        this.reads = route(Target.REPLICA, "read");
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWrites.wrote();
+                    }
+                });
+            }
+            writes.increment();
+            return Target.PRIMARY;
+        }
+        if (readYourWrites.hasRecentWrite()) {
+            recentWrites.increment();
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.isFresh()) {
+            lagging.increment();
+            return Target.PRIMARY;
+        }
+        markReplicaTransaction();
+        reads.increment();
+        return Target.REPLICA;
+    }
+
+    /**
+     * Whether the current transaction reads from the replica. What it loads may be up to max-lag-ms older than the
+     * primary, including rows whose cache entries a write has just evicted, so it must not be put into a cache
+     * shared with other requests: there it would outlive the lag and be served even to the writer.
+     */
+    public static boolean isReplicaTransaction() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_TRANSACTION);
+    }
+
+    private static void markReplicaTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_TRANSACTION)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_TRANSACTION, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_TRANSACTION);
+            }
+        });
+    }
+
+    private static Counter route(Target target, String reason) {
+        return Counter.builder("shareit.datasource.routes")
+                .tag("target", target.name().toLowerCase())
+                .tag("reason", reason)
+                .register(Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.export;
+
+import lombok.Value;
+
+import java.util.function.Function;
+
+/**
+ * A CSV column: header name and how to take the value from a row.
+ */
+@Value(staticConstructor = "of")
+public class ExportColumn<T> {
+    String name;
+    Function<T, Object> value;
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.export;
+
+import org.springframework.http.HttpHeaders;
+import ru.practicum.shareit.exception.ArgumentException;
+
+import javax.servlet.http.HttpServletResponse;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public void setResponseHeaders(HttpServletResponse response, String fileName) {
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                String.format("attachment; filename=\"%s.%s\"", fileName, extension));
+    }
+
+    public static ExportFormat getFormat(String text) {
+        try {
+            return ExportFormat.valueOf(text.toUpperCase().trim());
+        } catch (Exception e) {
+            throw new ArgumentException(String.format("Unknown format: %s", text));
+        }
+    }
+}
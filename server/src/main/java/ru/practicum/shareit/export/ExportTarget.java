@@ -0,0 +1,15 @@
+package ru.practicum.shareit.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Where an export goes. It is opened only once the export has been checked and its rows are ready, so that a
+ * refused export is answered like any other error: opening it commits the response to the file's content type
+ * and attachment headers.
+ */
+@FunctionalInterface
+public interface ExportTarget {
+
+    OutputStream open() throws IOException;
+}
@@ -1,13 +1,21 @@
 package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.export.ExportFormat;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.service.ItemImporter;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * TODO Sprint add-controllers.
@@ -18,6 +26,7 @@ import java.util.List;
 @Validated
 public class ItemController {
     private final ItemService itemService;
+    private final ItemImporter itemImporter;
     private static final String userIdInHeader = "X-Sharer-User-Id";
 
     @PostMapping
@@ -26,6 +35,17 @@ public class ItemController {
         return itemService.addItem(ownerId, itemDto);
     }
 
+    @PostMapping("/batch")
+    public List<ItemDto> createAll(@RequestHeader(userIdInHeader) long ownerId,
+                                   @RequestBody List<ItemDto> itemDtos) {
+        return itemService.addItems(ownerId, itemDtos);
+    }
+
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ItemImportResultDto importItems(@RequestHeader(userIdInHeader) long ownerId, InputStream rows) {
+        return itemImporter.importItems(ownerId, rows);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto update(@RequestHeader(userIdInHeader) Long ownerId, @PathVariable Long itemId,
                           @RequestBody ItemDto itemDto) {
@@ -41,16 +61,43 @@ public class ItemController {
     @GetMapping
     public List<ItemDto> getAllItems(@RequestHeader(userIdInHeader) long ownerId,
                                      @RequestParam(defaultValue = "0") int from,
-                                     @RequestParam(defaultValue = "10") int size) {
-        return itemService.getAllItems(ownerId, from, size);
+                                     @RequestParam(defaultValue = "10") int size,
+                                     @RequestParam(required = false) String after,
+                                     HttpServletResponse response) {
+        List<ItemDto> items = itemService.getAllItems(ownerId, from, size, Cursor.decode(after));
+        Cursor.setNextCursor(response, items, size, item -> Cursor.of(item.getName(), item.getId()));
+        return items;
+    }
+
+    @GetMapping("/export")
+    public void exportItems(@RequestHeader(userIdInHeader) long ownerId,
+                            @RequestParam(defaultValue = "ndjson") String format,
+                            HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.getFormat(format);
+        itemService.exportItems(ownerId, exportFormat, () -> {
+            exportFormat.setResponseHeaders(response, "items");
+            return response.getOutputStream();
+        });
     }
 
     @GetMapping("/search")
     public List<ItemDto> getItemByText(@RequestHeader(userIdInHeader) long userId,
                                        @RequestParam(name = "text") String text,
                                        @RequestParam(defaultValue = "0") int from,
-                                       @RequestParam(defaultValue = "10") int size) {
-        return itemService.getItemByText(text, from, size);
+                                       @RequestParam(defaultValue = "10") int size,
+                                       @RequestParam(required = false) String after,
+                                       HttpServletResponse response) {
+        List<ItemDto> items = itemService.getItemByText(text, from, size, Cursor.decode(after));
+        Cursor.setNextCursor(response, items, size, item -> searchCursor(item, text));
+        return items;
+    }
+
+    /**
+     * The position in the order of {@link ru.practicum.shareit.item.repository.ItemRepository#SEARCH_RANK} and id.
+     */
+    private static Cursor searchCursor(ItemDto item, String text) {
+        boolean nameMatches = item.getName().toLowerCase(Locale.ROOT).contains(text.toLowerCase(Locale.ROOT));
+        return Cursor.of(nameMatches ? "0" : "1", item.getId());
     }
 
     @DeleteMapping("/{itemId}")
@@ -31,4 +31,11 @@ public class ItemDto {
     private ShortBookingDto lastBooking;
     private ShortBookingDto nextBooking;
     private List<CommentDto> comments;
+
+    /**
+     * Flat form for JPQL constructor expressions.
+     */
+    public ItemDto(Long id, String name, String description, Boolean available, Long requestId) {
+        this(id, name, description, available, null, requestId, null, null, null);
+    }
 }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemImportResultDto {
+    private long total;
+    private long imported;
+    private long failed;
+    private List<ItemImportErrorDto> errors;
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One NDJSON line of an item import as sent by the gateway: a validated item, or the reason the gateway
+ * rejected the uploaded row.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemImportRow {
+    private long row;
+    private ItemDto item;
+    private String error;
+}
@@ -2,12 +2,16 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
 
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItemId(long itemId, Sort sort);
+    @Query(value = "select c from Comment c join fetch c.author where c.item.id = :itemId")
+    List<Comment> findAllByItemId(@Param("itemId") long itemId, Sort sort);
 
-    List<Comment> findAllByItemIdIn(List<Long> items, Sort sort);
+    @Query(value = "select c from Comment c join fetch c.author where c.item.id in :items")
+    List<Comment> findAllByItemIdIn(@Param("items") List<Long> items, Sort sort);
 }
@@ -1,23 +1,76 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
 import ru.practicum.shareit.item.model.Item;
 
 import org.springframework.data.domain.Pageable;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    String ITEM_DTO = "select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, " +
+            " i.request.id) from Item i ";
+    String SEARCH_MATCH = "(lower(i.name) like lower(concat('%',:text,'%'))"
+            + " or lower(i.description) like lower(concat('%',:text,'%'))) and i.available=true";
+    /**
+     * 0 for items whose name matches, 1 for the ones matched by the description only.
+     */
+    String SEARCH_RANK = "case when lower(i.name) like lower(concat('%',:text,'%')) then 0 else 1 end";
+
     List<Item> findAllByOwnerId(Long ownerId, Pageable pageable);
 
-    @Query(value = "select i from Item i " +
-            "where( lower(i.name) like lower(concat('%',?1,'%')) "
-            + " or lower(i.description) like lower(concat('%',?1,'%')))"
-            + " and i.available=true")
-    List<Item> searchAvailableItems(String text, Pageable pageable);
+    /**
+     * Cached per instance like {@link ru.practicum.shareit.user.repository.UserRepository#existsUserById}: an
+     * item changed or deleted through another instance is seen here only once the entry expires. Items read from
+     * the replica are not cached either.
+     */
+    @Cacheable(value = "items", unless = "#result == null"
+            + " or T(ru.practicum.shareit.datasource.ReplicaRoutingDataSource).isReplicaTransaction()")
+    @Query(value = "select new ru.practicum.shareit.item.dto.ItemSnapshot(i.id, i.name, i.description, i.available, " +
+            " i.owner.id, i.request.id) from Item i where i.id = :itemId")
+    Optional<ItemSnapshot> findSnapshotById(@Param("itemId") Long itemId);
+
+    @Query(value = "select i from Item i where i.owner.id = :ownerId " +
+            " and (i.name < :name or (i.name = :name and i.id < :id)) order by i.name desc, i.id desc")
+    List<Item> findAllByOwnerIdAfter(@Param("ownerId") Long ownerId, @Param("name") String name, @Param("id") Long id,
+                                     Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = ITEM_DTO + "where i.owner.id = :ownerId order by i.name desc, i.id desc")
+    Stream<ItemDto> streamAllByOwnerId(@Param("ownerId") long ownerId);
+
+    @Query(value = ITEM_DTO + "where " + SEARCH_MATCH + " order by " + SEARCH_RANK + ", i.id")
+    List<ItemDto> searchAvailableItems(@Param("text") String text, Pageable pageable);
+
+    @Query(value = ITEM_DTO + "where " + SEARCH_MATCH
+            + " and (" + SEARCH_RANK + " > :rank or (" + SEARCH_RANK + " = :rank and i.id > :id))"
+            + " order by " + SEARCH_RANK + ", i.id")
+    List<ItemDto> searchAvailableItemsAfter(@Param("text") String text, @Param("rank") int rank, @Param("id") long id,
+                                            Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select i from Item i where i.id = :itemId")
+    Optional<Item> findByIdForUpdate(@Param("itemId") Long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select i from Item i where i.id in :itemIds order by i.id")
+    List<Item> findAllByIdForUpdate(@Param("itemIds") List<Long> itemIds);
 
-    List<Item> findAllByRequestIdIn(List<Long> requestIds);
+    @Query(value = ITEM_DTO + "where i.request.id in :requestIds")
+    List<ItemDto> findAllByRequestIdIn(@Param("requestIds") List<Long> requestIds);
 
     List<Item> findAllByRequestId(Long requestId);
 }
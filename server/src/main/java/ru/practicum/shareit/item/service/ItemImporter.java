@@ -0,0 +1,103 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.ItemImportRow;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams an NDJSON item import into the database in chunks of {@code shareit.import.chunk-size} rows, each
+ * committed on its own, so neither the upload nor the persistence context grows with the number of rows.
+ * Rows already committed stay imported when a later row fails. The owner is checked in a read-write transaction
+ * like the chunks, so that with a replica the check sees the same database the items are written to.
+ */
+@Service
+public class ItemImporter {
+    private final ItemService itemService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader rowReader;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public ItemImporter(ItemService itemService, UserRepository userRepository,
+                        TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                        @Value("${shareit.import.chunk-size}") int chunkSize,
+                        @Value("${shareit.import.max-errors}") int maxErrors) {
+        this.itemService = itemService;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.rowReader = objectMapper.readerFor(ItemImportRow.class);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ItemImportResultDto importItems(long ownerId, InputStream rows) {
+        if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> userRepository.existsUserById(ownerId)))) {
+            throw new NotFoundException(String.format("пользователь с id %d не найден", ownerId));
+        }
+        Result result = new Result();
+        List<ItemImportRow> chunk = new ArrayList<>(chunkSize);
+        try (MappingIterator<ItemImportRow> iterator = rowReader.readValues(rows)) {
+            while (iterator.hasNextValue()) {
+                ItemImportRow row = iterator.nextValue();
+                result.total++;
+                if (row.getError() != null || row.getItem() == null) {
+                    result.fail(row.getRow(), row.getError() != null ? row.getError() : "пустая строка");
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    result.save(ownerId, chunk);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.save(ownerId, chunk);
+        return ItemImportResultDto.builder()
+                .total(result.total)
+                .imported(result.imported)
+                .failed(result.failed)
+                .errors(result.errors)
+                .errorsTruncated(result.failed > result.errors.size())
+                .build();
+    }
+
+    private class Result {
+        private long total;
+        private long imported;
+        private long failed;
+        private final List<ItemImportErrorDto> errors = new ArrayList<>();
+
+        private void fail(long row, String error) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ItemImportErrorDto(row, error));
+            }
+        }
+
+        private void save(long ownerId, List<ItemImportRow> chunk) {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<ItemImportErrorDto> chunkErrors = itemService.importItems(ownerId, chunk);
+            imported += chunk.size() - chunkErrors.size();
+            chunkErrors.forEach(error -> fail(error.getRow(), error.getError()));
+        }
+    }
+}
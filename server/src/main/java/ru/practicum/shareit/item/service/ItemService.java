@@ -2,13 +2,22 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportRow;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.export.ExportTarget;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
 
 import java.util.List;
 
 public interface ItemService {
     ItemDto addItem(long ownerId, ItemDto itemDto);
 
+    List<ItemDto> addItems(long ownerId, List<ItemDto> itemDtos);
+
+    List<ItemImportErrorDto> importItems(long ownerId, List<ItemImportRow> rows);
+
     ItemDto updateItem(Long ownerId, Long itemId, ItemDto itemDto);
 
     Item getItemById(long itemId);
@@ -17,9 +26,11 @@ public interface ItemService {
 
     void deleteItemById(long ownerId, long itemId);
 
-    List<ItemDto> getAllItems(long ownerId, int from, int size);
+    List<ItemDto> getAllItems(long ownerId, int from, int size, Cursor after);
+
+    void exportItems(long ownerId, ExportFormat format, ExportTarget target);
 
-    List<ItemDto> getItemByText(String text, int from, int size);
+    List<ItemDto> getItemByText(String text, int from, int size, Cursor after);
 
     CommentDto addComment(long userId, long itemId, CommentDto commentDto);
 }
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -11,54 +12,163 @@ import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingSummaryService;
+import ru.practicum.shareit.cache.AfterCommitEviction;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.export.ExportColumn;
+import ru.practicum.shareit.export.ExportFormat;
+import ru.practicum.shareit.export.ExportTarget;
+import ru.practicum.shareit.export.ExportWriter;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportRow;
+import ru.practicum.shareit.item.dto.ItemSnapshot;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final List<ExportColumn<ItemDto>> EXPORT_COLUMNS = List.of(
+            ExportColumn.of("id", ItemDto::getId),
+            ExportColumn.of("name", ItemDto::getName),
+            ExportColumn.of("description", ItemDto::getDescription),
+            ExportColumn.of("available", ItemDto::getAvailable),
+            ExportColumn.of("requestId", ItemDto::getRequestId));
 
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final EntityManager entityManager;
+    private final ExportWriter exportWriter;
+    private final BookingSummaryService bookingSummaryService;
+    private final AfterCommitEviction afterCommitEviction;
     private final Sort sort = Sort.by(Sort.Direction.ASC, "created");
 
-    private User getUserById(Long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format("пользователь с id %d не найден", userId)));
-    }
-
     @Transactional
     public ItemDto addItem(long ownerId, ItemDto itemDto) {
-        User owner = getUserById(ownerId);
+        existsUserWithId(ownerId);
         Item item = ItemMapper.toItem(itemDto);
-        item.setOwner(owner);
+        item.setOwner(userRepository.getReferenceById(ownerId));
         if (itemDto.getRequestId() != null) {
             Long requestId = itemDto.getRequestId();
             item.setRequest(itemRequestRepository.findById(requestId)
                     .orElseThrow(() -> new NotFoundException(
                             String.format("запрос с id:%s не найден ", requestId))));
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        return ItemMapper.toItemDto(saveAllOfOwner(ownerId, List.of(item)).get(0));
+    }
+
+    @Transactional
+    public List<ItemDto> addItems(long ownerId, List<ItemDto> itemDtos) {
+        existsUserWithId(ownerId);
+        User owner = userRepository.getReferenceById(ownerId);
+        List<Long> requestIds = itemDtos.stream()
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, ItemRequest> requests = itemRequestRepository.findAllById(requestIds)
+                .stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+        List<Item> items = new ArrayList<>(itemDtos.size());
+        for (ItemDto itemDto : itemDtos) {
+            Item item = ItemMapper.toItem(itemDto);
+            item.setOwner(owner);
+            Long requestId = itemDto.getRequestId();
+            if (requestId != null) {
+                item.setRequest(Optional.ofNullable(requests.get(requestId))
+                        .orElseThrow(() -> new NotFoundException(
+                                String.format("запрос с id:%s не найден ", requestId))));
+            }
+            items.add(item);
+        }
+        return ItemMapper.toItemDtoList(saveAllOfOwner(ownerId, items));
+    }
+
+    /**
+     * Saves one chunk of an import in its own transaction. Unlike {@link #addItems} a row with an unknown
+     * request is reported and skipped instead of failing the chunk.
+     */
+    @Transactional
+    public List<ItemImportErrorDto> importItems(long ownerId, List<ItemImportRow> rows) {
+        existsUserWithId(ownerId);
+        User owner = userRepository.getReferenceById(ownerId);
+        List<Long> requestIds = rows.stream()
+                .map(row -> row.getItem().getRequestId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, ItemRequest> requests = itemRequestRepository.findAllById(requestIds)
+                .stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+        List<ItemImportErrorDto> errors = new ArrayList<>();
+        List<Item> items = new ArrayList<>(rows.size());
+        for (ItemImportRow row : rows) {
+            ItemDto itemDto = row.getItem();
+            Item item = ItemMapper.toItem(itemDto);
+            item.setId(null);
+            item.setOwner(owner);
+            Long requestId = itemDto.getRequestId();
+            if (requestId != null) {
+                ItemRequest request = requests.get(requestId);
+                if (request == null) {
+                    errors.add(new ItemImportErrorDto(row.getRow(),
+                            String.format("запрос с id:%s не найден ", requestId)));
+                    continue;
+                }
+                item.setRequest(request);
+            }
+            items.add(item);
+        }
+        saveAllOfOwner(ownerId, items);
+        entityManager.clear();
+        return errors;
+    }
+
+    /**
+     * Inserts the items of {@code ownerId} right away. A violation is answered like any missing user only when
+     * the owner is really gone, i.e. was deleted after its cached existence check
+     * ({@link UserRepository#existsUserById}); any other violation is rethrown as is.
+     */
+    private List<Item> saveAllOfOwner(long ownerId, List<Item> items) {
+        try {
+            List<Item> saved = itemRepository.saveAll(items);
+            itemRepository.flush();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            if (userRepository.existsUserByIdUncached(ownerId)) {
+                throw e;
+            }
+            log.warn("вещи пользователя {} не сохранены: {}", ownerId, e.getMostSpecificCause().getMessage());
+            throw new NotFoundException(String.format("пользователь с id %d не найден", ownerId));
+        }
     }
 
     @Transactional
@@ -81,6 +191,7 @@ public class ItemServiceImpl implements ItemService {
         }
         if (i > 0) {
             itemRepository.save(item);
+            afterCommitEviction.evict("items", itemId);
         }
         return ItemMapper.toItemDto(item);
     }
@@ -95,57 +206,37 @@ public class ItemServiceImpl implements ItemService {
 
     private void existsUserWithId(Long userId) {
         if (!userRepository.existsUserById(userId)) {
-            throw new NotFoundException(String.format("User with id %d not found", userId));
+            throw new NotFoundException(String.format("пользователь с id %d не найден", userId));
         }
     }
 
     @Transactional(readOnly = true)
     public Item getItemById(long itemId) {
         return itemRepository.findById(itemId)
-                .orElseThrow(() -> new NotFoundException(String.format("пользователь с id %d не найден", itemId)));
+                .orElseThrow(() -> new NotFoundException(String.format("вещь с id %d не найдена", itemId)));
     }
 
     @Transactional(readOnly = true)
     public ItemDto getItemDtoById(long itemId, long userId) {
-        Item item = getItemById(itemId);
+        ItemSnapshot item = itemRepository.findSnapshotById(itemId)
+                .orElseThrow(() -> new NotFoundException(String.format("вещь с id = %d не найдена", itemId)));
         List<Comment> comments = commentRepository.findAllByItemId(item.getId(),
                 Sort.by(Sort.Direction.ASC, "created"));
         ItemDto itemDto = ItemMapper.toItemDto(item);
-        if (item.getOwner() != null && item.getOwner().getId().equals(userId)) {
-            setBookings(itemDto, bookingRepository.findAllByItemIdAndStatus(itemId, BookingStatus.APPROVED,
-                    PageRequest.of(0, 10000, BookingRepository.SORT_BY_START_DESC)));
+        if (item.getOwnerId() != null && item.getOwnerId().equals(userId)) {
+            LocalDateTime now = LocalDateTime.now();
+            itemDto.setLastBooking(BookingMapper.bookingDtoShort(bookingRepository
+                    .findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(itemId, BookingStatus.APPROVED, now)
+                    .orElse(null)));
+            itemDto.setNextBooking(BookingMapper.bookingDtoShort(bookingRepository
+                    .findFirstByItemIdAndStatusAndStartAfterAndEndAfterOrderByStartAsc(itemId, BookingStatus.APPROVED,
+                            now, now)
+                    .orElse(null)));
         }
-        setComments(itemDto, comments);
+        itemDto.setComments(CommentMapper.toItemDtoList(comments));
         return itemDto;
     }
 
-    private void setBookings(ItemDto itemDto, List<Booking> bookings) {
-        LocalDateTime now = LocalDateTime.now();
-        Long itemId = itemDto.getId();
-        itemDto.setLastBooking(bookings.stream()
-                .filter(booking -> booking.getItem().getId().equals(itemId))
-                .filter(booking -> booking.getStart().isBefore(now))
-                .sorted(Comparator.comparing(Booking::getStart).reversed())
-                .limit(1)
-                .map(BookingMapper::bookingDtoShort)
-                .findFirst().orElse(null));
-        itemDto.setNextBooking(bookings.stream()
-                .filter(booking -> booking.getItem().getId().equals(itemId))
-                .filter(booking -> booking.getStart().isAfter(now))
-                .sorted(Comparator.comparing(Booking::getStart))
-                .limit(1)
-                .map(BookingMapper::bookingDtoShort)
-                .findFirst().orElse(null));
-    }
-
-    private void setComments(ItemDto itemDto, List<Comment> comments) {
-        Long itemId = itemDto.getId();
-        itemDto.setComments(comments.stream()
-                .filter(comment -> comment.getItem().getId().equals(itemId))
-                .map(CommentMapper::toCommentDto)
-                .collect(Collectors.toList()));
-    }
-
     @Transactional
     public CommentDto addComment(long userId, long itemId, CommentDto commentDto) {
         User user = userRepository.findById(userId)
@@ -164,34 +255,72 @@ public class ItemServiceImpl implements ItemService {
 
     @Transactional
     public void deleteItemById(long ownerId, long itemId) {
-        getUserById(ownerId);
+        existsUserWithId(ownerId);
         Item item = getItemById(itemId);
         checkOwnerOfItem(ownerId, item);
+        List<Long> bookerIds = bookingRepository.findBookerIdsOfItem(itemId);
         itemRepository.delete(item);
+        itemRepository.flush();
+        afterCommitEviction.evict("items", itemId);
+        bookingSummaryService.recount(bookerIds, List.of(ownerId));
     }
 
-    public List<ItemDto> getAllItems(long ownerId, int from, int size) {
+    @Transactional(readOnly = true)
+    public List<ItemDto> getAllItems(long ownerId, int from, int size, Cursor after) {
         existsUserWithId(ownerId);
-        List<Item> items = itemRepository.findAllByOwnerId(ownerId, PageRequest.of(from / size, size,
-                Sort.by(Sort.Direction.DESC, "name")));
-        Pageable pageable = PageRequest.of(from / size, size, BookingRepository.SORT_BY_START_DESC);
-        List<Booking> bookings = bookingRepository.findAllByOwnerIdAndStatus(ownerId, BookingStatus.APPROVED, pageable);
-        List<Comment> comments = commentRepository.findAllByItemIdIn(items.stream()
+        List<Item> items = after == null
+                ? itemRepository.findAllByOwnerId(ownerId, OffsetPageRequest.of(from, size,
+                Sort.by(Sort.Direction.DESC, "name", "id")))
+                : itemRepository.findAllByOwnerIdAfter(ownerId, after.getKey(), after.getId(), PageRequest.ofSize(size));
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        List<Long> itemIds = items.stream()
                 .map(Item::getId)
-                .collect(Collectors.toList()), sort);
-        List<ItemDto> itemsDto = ItemMapper.toItemDtoList(items);
-        itemsDto.forEach(i -> {
-            setBookings(i, bookings);
-            setComments(i, comments);
-        });
-        return itemsDto;
+                .collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Booking> lastBookings = toMapByItemId(
+                bookingRepository.findLastBookingsOfItems(itemIds, BookingStatus.APPROVED, now));
+        Map<Long, Booking> nextBookings = toMapByItemId(
+                bookingRepository.findNextBookingsOfItems(itemIds, BookingStatus.APPROVED, now));
+        Map<Long, List<Comment>> comments = commentRepository.findAllByItemIdIn(itemIds, sort)
+                .stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+        return items.stream()
+                .map(item -> {
+                    ItemDto itemDto = ItemMapper.toItemDto(item);
+                    itemDto.setLastBooking(BookingMapper.bookingDtoShort(lastBookings.get(item.getId())));
+                    itemDto.setNextBooking(BookingMapper.bookingDtoShort(nextBookings.get(item.getId())));
+                    itemDto.setComments(CommentMapper.toItemDtoList(comments.getOrDefault(item.getId(), List.of())));
+                    return itemDto;
+                })
+                .collect(Collectors.toList());
     }
 
-    public List<ItemDto> getItemByText(String text, int from, int size) {
+    private Map<Long, Booking> toMapByItemId(List<Booking> bookings) {
+        return bookings.stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity(),
+                        (first, second) -> first));
+    }
+
+    @Transactional(readOnly = true)
+    public void exportItems(long ownerId, ExportFormat format, ExportTarget target) {
+        existsUserWithId(ownerId);
+        try (Stream<ItemDto> items = itemRepository.streamAllByOwnerId(ownerId)) {
+            exportWriter.write(format, items, EXPORT_COLUMNS, target);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<ItemDto> getItemByText(String text, int from, int size, Cursor after) {
         if ((text == null) || (text.isBlank())) {
             return List.of();
         }
-        Pageable pageable = PageRequest.of(from / size, size);
-        return ItemMapper.toItemDtoList(itemRepository.searchAvailableItems(text, pageable));
+        if (after != null) {
+            return itemRepository.searchAvailableItemsAfter(text, after.getKeyAsInt(), after.getId(),
+                    PageRequest.ofSize(size));
+        }
+        Pageable pageable = OffsetPageRequest.of(from, size);
+        return itemRepository.searchAvailableItems(text, pageable);
     }
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.outbox;
+
+/**
+ * Handles the events of one topic. Delivery is at least once: when any consumer of the topic fails, the event is
+ * delivered to all of them again on a later poll, so handling has to be idempotent.
+ */
+public interface OutboxConsumer<T> {
+
+    String getTopic();
+
+    Class<T> getPayloadType();
+
+    void consume(T payload);
+}
@@ -0,0 +1,263 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Polls the outbox and hands the events to the consumers of their topic on the outbox executor. A short
+ * transaction claims a batch of aggregates by marking their oldest events, events of one aggregate go to one task
+ * in id order, and once the tasks are done a second short transaction deletes the delivered events. No
+ * transaction, connection or row lock is held while the consumers run. The first failed event of an aggregate gets
+ * its attempt counted and stops the rest of that aggregate until the next poll; after {@code max-attempts} failures
+ * an event stays in the table for a look by hand, and the later events of its aggregate wait behind it until it is
+ * deleted or its attempts are reset, so an aggregate is never delivered out of order. This also holds with several
+ * instances polling the same table, as an aggregate is claimed by one of them at a time.
+ * <p>
+ * Only topics with a consumer in this instance are polled. Events of other topics stay in the table, e.g. during
+ * a rolling deploy, until an instance that has their consumer picks them up.
+ * <p>
+ * A task still running at {@code consumer-timeout-ms} is interrupted and its event counted as failed. An aggregate
+ * is marked busy before its task is submitted and stays busy until the task has really finished, or was cancelled
+ * before it started; busy aggregates are left out of the following batches, so a consumer that ignores the
+ * interrupt never sees two deliveries of one aggregate at a time.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final ObjectMapper objectMapper;
+    private final Map<String, List<OutboxConsumer<?>>> consumers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long consumerTimeoutMs;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Timer lag;
+    private final Set<String> busyAggregates = ConcurrentHashMap.newKeySet();
+
+    public OutboxDispatcher(OutboxRepository outboxRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Qualifier("outboxExecutor") ThreadPoolTaskExecutor executor,
+                            ObjectMapper objectMapper,
+                            ObjectProvider<OutboxConsumer<?>> consumers,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.outbox.batch-size}") int batchSize,
+                            @Value("${shareit.outbox.max-attempts}") int maxAttempts,
+                            @Value("${shareit.outbox.consumer-timeout-ms}") long consumerTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        this.consumers = consumers.orderedStream()
+                .collect(Collectors.groupingBy(OutboxConsumer::getTopic));
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.consumerTimeoutMs = consumerTimeoutMs;
+        this.delivered = Counter.builder("shareit.outbox.events").tag("outcome", "delivered").register(meterRegistry);
+        this.failed = Counter.builder("shareit.outbox.events").tag("outcome", "failed").register(meterRegistry);
+        this.lag = Timer.builder("shareit.outbox.lag")
+                .description("time from the event being stored to its delivery")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drains full batches one after another, so a burst of events does not wait a poll interval per batch.
+     */
+    @Scheduled(fixedDelayString = "${shareit.outbox.poll-interval-ms}",
+            initialDelayString = "${shareit.outbox.poll-interval-ms}")
+    public void dispatch() {
+        while (dispatchBatch()) {
+            log.debug("outbox batch of {} events delivered, polling again", batchSize);
+        }
+    }
+
+    private boolean dispatchBatch() {
+        if (consumers.isEmpty()) {
+            return false;
+        }
+        Map<String, List<OutboxEvent>> byAggregate = transactionTemplate.execute(status -> claimBatch());
+        if (byAggregate == null || byAggregate.isEmpty()) {
+            return false;
+        }
+        List<Delivery> deliveries = new ArrayList<>(byAggregate.size());
+        for (Map.Entry<String, List<OutboxEvent>> aggregate : byAggregate.entrySet()) {
+            busyAggregates.add(aggregate.getKey());
+            Delivery delivery = new Delivery(aggregate.getKey(), aggregate.getValue());
+            delivery.task = executor.submit(delivery);
+            deliveries.add(delivery);
+        }
+        int scheduled = 0;
+        List<Long> deliveredIds = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(consumerTimeoutMs);
+        for (Delivery delivery : deliveries) {
+            List<OutboxEvent> done = await(delivery, deadline);
+            LocalDateTime now = LocalDateTime.now();
+            for (OutboxEvent event : done) {
+                deliveredIds.add(event.getId());
+                lag.record(Duration.between(event.getCreated(), now));
+            }
+            scheduled += delivery.events.size();
+            if (done.size() < delivery.events.size()) {
+                // the claimed oldest event is either delivered and deleted or this one
+                failedIds.add(delivery.events.get(done.size()).getId());
+                failed.increment();
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!deliveredIds.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(deliveredIds);
+            }
+            failedIds.forEach(outboxRepository::releaseFailed);
+        });
+        delivered.increment(deliveredIds.size());
+        return byAggregate.size() == batchSize && deliveredIds.size() == scheduled;
+    }
+
+    /**
+     * Claims the oldest events of up to {@code batch-size} aggregates that are not busy here and reads the events
+     * that follow them. The claim outlives the consumer timeout, so it only expires for a dispatcher that died or a
+     * task that ignored its interrupt for that long.
+     */
+    private Map<String, List<OutboxEvent>> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> oldest = outboxRepository.findOldestOfAggregatesForUpdate(consumers.keySet(), maxAttempts,
+                now, PageRequest.of(0, batchSize));
+        LocalDateTime claimedUntil = now.plus(Duration.ofMillis(2 * consumerTimeoutMs));
+        Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEvent event : oldest) {
+            if (!busyAggregates.contains(aggregateOf(event))) {
+                event.setClaimedUntil(claimedUntil);
+                byAggregate.put(aggregateOf(event), new ArrayList<>(List.of(event)));
+            }
+        }
+        if (byAggregate.isEmpty()) {
+            return byAggregate;
+        }
+        Set<Long> aggregateIds = byAggregate.values().stream()
+                .map(events -> events.get(0).getAggregateId())
+                .collect(Collectors.toSet());
+        // a page cut short still leaves each aggregate a gapless run from its oldest event
+        for (OutboxEvent event : outboxRepository.findAllByAggregateIds(aggregateIds, PageRequest.of(0, batchSize))) {
+            List<OutboxEvent> aggregateEvents = byAggregate.get(aggregateOf(event));
+            if (aggregateEvents != null && event.getId() > aggregateEvents.get(0).getId()) {
+                aggregateEvents.add(event);
+            }
+        }
+        return byAggregate;
+    }
+
+    private static String aggregateOf(OutboxEvent event) {
+        return event.getTopic() + ":" + event.getAggregateId();
+    }
+
+    /**
+     * Delivers the events of one aggregate in order and returns the ones every consumer handled.
+     */
+    private List<OutboxEvent> deliver(List<OutboxEvent> events) {
+        List<OutboxEvent> done = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            try {
+                for (OutboxConsumer<?> consumer : consumers.get(event.getTopic())) {
+                    consume(consumer, event);
+                }
+            } catch (RuntimeException e) {
+                log.warn("событие {} темы {} не обработано (попытка {}): {}", event.getId(), event.getTopic(),
+                        event.getAttempts() + 1, e.toString());
+                break;
+            }
+            done.add(event);
+        }
+        return done;
+    }
+
+    private <T> void consume(OutboxConsumer<T> consumer, OutboxEvent event) {
+        T payload;
+        try {
+            payload = objectMapper.readValue(event.getPayload(), consumer.getPayloadType());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        consumer.consume(payload);
+    }
+
+    private static List<OutboxEvent> await(Delivery delivery, long deadline) {
+        try {
+            return delivery.task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            delivery.cancel();
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (TimeoutException e) {
+            delivery.cancel();
+            return List.of();
+        } catch (ExecutionException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * The task of one aggregate. Whichever comes first of the task starting and the dispatcher cancelling it claims
+     * the task; the aggregate is released by the task when it ends, or by the dispatcher when the task never ran.
+     */
+    private final class Delivery implements Callable<List<OutboxEvent>> {
+        private final String aggregate;
+        private final List<OutboxEvent> events;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<List<OutboxEvent>> task;
+
+        private Delivery(String aggregate, List<OutboxEvent> events) {
+            this.aggregate = aggregate;
+            this.events = events;
+        }
+
+        @Override
+        public List<OutboxEvent> call() {
+            if (!claimed.compareAndSet(false, true)) {
+                return List.of();
+            }
+            try {
+                return deliver(events);
+            } finally {
+                busyAggregates.remove(aggregate);
+            }
+        }
+
+        private void cancel() {
+            task.cancel(true);
+            if (claimed.compareAndSet(false, true)) {
+                busyAggregates.remove(aggregate);
+            }
+        }
+    }
+}
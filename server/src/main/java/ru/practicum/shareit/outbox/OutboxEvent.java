@@ -0,0 +1,32 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An event waiting to be handed to the consumers of its topic. The payload is JSON, events of one aggregate are
+ * delivered in id order.
+ */
+@Data
+@Entity
+@Builder
+@Table(name = "outbox_events")
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "OUTBOX_EVENTS_SEQ", allocationSize = 50)
+    private Long id;
+    private String topic;
+    private Long aggregateId;
+    private String payload;
+    private LocalDateTime created;
+    private int attempts;
+    /**
+     * Set while a dispatcher delivers the aggregate of this event; an expired claim is free to take again.
+     */
+    private LocalDateTime claimedUntil;
+}
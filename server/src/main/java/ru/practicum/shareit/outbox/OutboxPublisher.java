@@ -0,0 +1,41 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.InternalServerError;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stores events in the caller's transaction, so they are dispatched only if it commits. The insert joins the
+ * JDBC batch of the transaction; consumers run later on the dispatcher's threads.
+ */
+@Component
+public class OutboxPublisher {
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxPublisher(OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String topic, Long aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerError(String.format("не удалось сохранить событие %s: %s", topic, e.getMessage()));
+        }
+        outboxRepository.save(OutboxEvent.builder()
+                .topic(topic)
+                .aggregateId(aggregateId)
+                .payload(json)
+                .created(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * The oldest unclaimed event of each aggregate, locked until the caller has claimed it. A claimed oldest event
+     * holds the aggregate: its later events are never the oldest, so no other dispatcher selects them while the
+     * claim lasts. An event that has run out of attempts
+     * is always the oldest of its aggregate, as the events before it were delivered, so it holds back the rest.
+     * Rows locked by another dispatcher are skipped (lock timeout -2 is Hibernate's SKIP LOCKED; dialects without
+     * it, like H2, lock as usual). Only events of the given topics are claimed; the others wait for a dispatcher
+     * that has a consumer for them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query(value = "select e from OutboxEvent e where e.topic in :topics and e.attempts < :maxAttempts" +
+            " and (e.claimedUntil is null or e.claimedUntil < :now)" +
+            " and not exists (select o.id from OutboxEvent o where o.topic = e.topic" +
+            " and o.aggregateId = e.aggregateId and o.id < e.id) order by e.id")
+    List<OutboxEvent> findOldestOfAggregatesForUpdate(@Param("topics") Collection<String> topics,
+                                                      @Param("maxAttempts") int maxAttempts,
+                                                      @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Events with the given aggregate ids in id order, of any topic. They are read without a lock: the caller
+     * claims the aggregates it delivers through {@link #findOldestOfAggregatesForUpdate}.
+     */
+    @Query(value = "select e from OutboxEvent e where e.aggregateId in :aggregateIds order by e.id")
+    List<OutboxEvent> findAllByAggregateIds(@Param("aggregateIds") Collection<Long> aggregateIds, Pageable pageable);
+
+    @Modifying
+    @Query(value = "update OutboxEvent e set e.attempts = e.attempts + 1, e.claimedUntil = null where e.id = :id")
+    int releaseFailed(@Param("id") long id);
+}
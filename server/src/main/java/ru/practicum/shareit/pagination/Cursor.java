@@ -0,0 +1,72 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+import ru.practicum.shareit.exception.ArgumentException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset position: the sort key and id of the last row of the previous page.
+ */
+@Value
+public class Cursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "|";
+
+    String key;
+    long id;
+
+    public static Cursor of(LocalDateTime key, long id) {
+        return new Cursor(key.toString(), id);
+    }
+
+    public static Cursor of(String key, long id) {
+        return new Cursor(key, id);
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            return new Cursor(value.substring(separator + 1), Long.parseLong(value.substring(0, separator)));
+        } catch (RuntimeException e) {
+            throw new ArgumentException(String.format("неверный курсор: %s", token));
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + SEPARATOR + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getKeyAsDateTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (RuntimeException e) {
+            throw new ArgumentException(String.format("неверный курсор: %s", encode()));
+        }
+    }
+
+    public int getKeyAsInt() {
+        try {
+            return Integer.parseInt(key);
+        } catch (RuntimeException e) {
+            throw new ArgumentException(String.format("неверный курсор: %s", encode()));
+        }
+    }
+
+    public static <T> void setNextCursor(HttpServletResponse response, List<T> page, int size,
+                                         Function<T, Cursor> toCursor) {
+        if (!page.isEmpty() && page.size() == size) {
+            response.setHeader(NEXT_CURSOR_HEADER, toCursor.apply(page.get(page.size() - 1)).encode());
+        }
+    }
+}
@@ -3,9 +3,11 @@ package ru.practicum.shareit.request.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 /**
@@ -28,15 +30,24 @@ public class ItemRequestController {
     @GetMapping
     public List<ItemRequestDto> getUserRequests(@RequestHeader(userIdInHeader) Long userId,
                                                 @RequestParam(defaultValue = "0") int from,
-                                                @RequestParam(defaultValue = "10") int size) {
-        return itemRequestService.getUserRequests(userId, from, size);
+                                                @RequestParam(defaultValue = "10") int size,
+                                                @RequestParam(required = false) String after,
+                                                HttpServletResponse response) {
+        List<ItemRequestDto> requests = itemRequestService.getUserRequests(userId, from, size, Cursor.decode(after));
+        Cursor.setNextCursor(response, requests, size, request -> Cursor.of(request.getCreated(), request.getId()));
+        return requests;
     }
 
     @GetMapping("/all")
     public List<ItemRequestDto> getOtherUsersRequests(@RequestHeader(userIdInHeader) Long userId,
                                                       @RequestParam(defaultValue = "0") Integer from,
-                                                      @RequestParam(defaultValue = "10") Integer size) {
-        return itemRequestService.getOtherUserRequests(userId, from, size);
+                                                      @RequestParam(defaultValue = "10") Integer size,
+                                                      @RequestParam(required = false) String after,
+                                                      HttpServletResponse response) {
+        List<ItemRequestDto> requests = itemRequestService.getOtherUserRequests(userId, from, size,
+                Cursor.decode(after));
+        Cursor.setNextCursor(response, requests, size, request -> Cursor.of(request.getCreated(), request.getId()));
+        return requests;
     }
 
     @GetMapping("/{requestId}")
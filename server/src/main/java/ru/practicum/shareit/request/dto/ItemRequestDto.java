@@ -23,4 +23,11 @@ public class ItemRequestDto {
     private List<ItemDto> items;
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime created;
+
+    /**
+     * Flat form for JPQL constructor expressions, items are added afterwards.
+     */
+    public ItemRequestDto(Long id, String description, LocalDateTime created) {
+        this(id, description, null, created);
+    }
 }
@@ -2,12 +2,32 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findAllByRequestorIdOrderByCreatedDesc(long id, Pageable pageable);
+    String REQUEST_DTO = "select new ru.practicum.shareit.request.dto.ItemRequestDto(r.id, r.description, " +
+            " r.created) from ItemRequest r ";
 
-    List<ItemRequest> findAllByRequestorIdNot(Long userId, Pageable pageable);
+    @Query(value = REQUEST_DTO + "where r.requestor.id = :userId")
+    List<ItemRequestDto> findAllByRequestorId(@Param("userId") long userId, Pageable pageable);
+
+    @Query(value = REQUEST_DTO + "where r.requestor.id <> :userId")
+    List<ItemRequestDto> findAllByRequestorIdNot(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = REQUEST_DTO + "where r.requestor.id = :userId " +
+            " and (r.created < :created or (r.created = :created and r.id < :id)) order by r.created desc, r.id desc")
+    List<ItemRequestDto> findAllByRequestorIdAfter(@Param("userId") Long userId, @Param("created") LocalDateTime created,
+                                                @Param("id") Long id, Pageable pageable);
+
+    @Query(value = REQUEST_DTO + "where r.requestor.id <> :userId " +
+            " and (r.created < :created or (r.created = :created and r.id < :id)) order by r.created desc, r.id desc")
+    List<ItemRequestDto> findAllByRequestorIdNotAfter(@Param("userId") Long userId,
+                                                   @Param("created") LocalDateTime created,
+                                                   @Param("id") Long id, Pageable pageable);
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.List;
@@ -7,9 +8,9 @@ import java.util.List;
 public interface ItemRequestService {
     ItemRequestDto addItemRequest(ItemRequestDto itemRequestDto, Long userId);
 
-    List<ItemRequestDto> getUserRequests(Long userId, int from, int size);
+    List<ItemRequestDto> getUserRequests(Long userId, int from, int size, Cursor after);
 
-    List<ItemRequestDto> getOtherUserRequests(Long userId, int from, int size);
+    List<ItemRequestDto> getOtherUserRequests(Long userId, int from, int size, Cursor after);
 
     ItemRequestDto getItemRequestById(Long userId, Long requestId);
 }
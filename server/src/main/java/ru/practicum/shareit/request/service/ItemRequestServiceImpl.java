@@ -2,18 +2,21 @@ package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
-import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
@@ -31,47 +34,64 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Transactional
     public ItemRequestDto addItemRequest(ItemRequestDto itemRequestDto, Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format("пользователь с id %d не найден", userId)));
-        ItemRequest itemRequest = itemRequestRepository.save(ItemRequest.builder()
-                .description(itemRequestDto.getDescription())
-                .created(LocalDateTime.now())
-                .requestor(user)
-                .build());
+        existsUserById(userId);
+        ItemRequest itemRequest;
+        try {
+            itemRequest = itemRequestRepository.saveAndFlush(ItemRequest.builder()
+                    .description(itemRequestDto.getDescription())
+                    .created(LocalDateTime.now())
+                    .requestor(userRepository.getReferenceById(userId))
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            if (userRepository.existsUserByIdUncached(userId)) {
+                throw e;
+            }
+            // the cached existence check passed for a user deleted through another instance
+            throw new NotFoundException(String.format("пользователь с id %d не найден", userId));
+        }
         return ItemRequestMapper.toItemRequestDto(itemRequest);
     }
 
-    public List<ItemRequestDto> getUserRequests(Long userId, int from, int size) {
+    @Transactional(readOnly = true)
+    public List<ItemRequestDto> getUserRequests(Long userId, int from, int size, Cursor after) {
         existsUserById(userId);
-        return itemRequestsToDto(itemRequestRepository.findAllByRequestorIdOrderByCreatedDesc(userId,
+        if (after != null) {
+            return itemRequestsToDto(itemRequestRepository.findAllByRequestorIdAfter(userId,
+                    after.getKeyAsDateTime(), after.getId(), PageRequest.ofSize(size)));
+        }
+        return itemRequestsToDto(itemRequestRepository.findAllByRequestorId(userId,
                 getPageRequest(from, size)));
     }
 
 
-    public List<ItemRequestDto> getOtherUserRequests(Long userId, int from, int size) {
+    @Transactional(readOnly = true)
+    public List<ItemRequestDto> getOtherUserRequests(Long userId, int from, int size, Cursor after) {
         existsUserById(userId);
+        if (after != null) {
+            return itemRequestsToDto(itemRequestRepository.findAllByRequestorIdNotAfter(userId,
+                    after.getKeyAsDateTime(), after.getId(), PageRequest.ofSize(size)));
+        }
         return itemRequestsToDto(itemRequestRepository.findAllByRequestorIdNot(userId, getPageRequest(from, size)));
     }
 
 
+    @Transactional(readOnly = true)
     public ItemRequestDto getItemRequestById(Long userId, Long requestId) {
         existsUserById(userId);
         ItemRequest itemRequest = getItemRequestById(requestId);
         return ItemRequestMapper.toItemRequestDto(itemRequest, itemRepository.findAllByRequestId(requestId));
     }
 
-    private List<ItemRequestDto> itemRequestsToDto(List<ItemRequest> itemRequests) {
+    private List<ItemRequestDto> itemRequestsToDto(List<ItemRequestDto> itemRequests) {
         List<Long> itemRequestsIds = itemRequests
                 .stream()
-                .map(ItemRequest::getId)
+                .map(ItemRequestDto::getId)
                 .collect(Collectors.toList());
-        Map<Long, List<Item>> itemsByRequest = itemRepository.findAllByRequestIdIn(itemRequestsIds)
-                .stream()
-                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
-        return itemRequests
+        Map<Long, List<ItemDto>> itemsByRequest = itemRepository.findAllByRequestIdIn(itemRequestsIds)
                 .stream()
-                .map(r -> ItemRequestMapper.toItemRequestDto(r, itemsByRequest.getOrDefault(r.getId(), List.of())))
-                .collect(Collectors.toList());
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+        itemRequests.forEach(r -> r.setItems(itemsByRequest.getOrDefault(r.getId(), List.of())));
+        return itemRequests;
     }
 
     private void existsUserById(Long userId) {
@@ -80,8 +100,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         }
     }
 
-    private PageRequest getPageRequest(int from, int size) {
-        return PageRequest.of(from > 0 ? from / size : 0, size, Sort.by(Sort.Direction.DESC, "created"));
+    private Pageable getPageRequest(int from, int size) {
+        return OffsetPageRequest.of(from, size, Sort.by(Sort.Direction.DESC, "created", "id"));
     }
 
     private ItemRequest getItemRequestById(Long id) {
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the last {@code capacity} finished spans in memory, for tests that assert on what was traced.
+ */
+public class InMemorySpanHandler extends SpanHandler {
+    private final int capacity;
+    private final ArrayDeque<MutableSpan> spans;
+
+    public InMemorySpanHandler(int capacity) {
+        this.capacity = capacity;
+        this.spans = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public synchronized boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause == Cause.ABANDONED) {
+            return true;
+        }
+        if (spans.size() == capacity) {
+            spans.removeFirst();
+        }
+        spans.addLast(span);
+        return true;
+    }
+
+    public synchronized List<MutableSpan> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized List<MutableSpan> getSpans(String traceId) {
+        return spans.stream()
+                .filter(span -> traceId.equals(span.traceId()))
+                .collect(Collectors.toList());
+    }
+
+    public synchronized void clear() {
+        spans.clear();
+    }
+}
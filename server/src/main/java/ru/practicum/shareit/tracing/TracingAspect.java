@@ -0,0 +1,66 @@
+package ru.practicum.shareit.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.metrics.ServiceMetricsAspect;
+
+/**
+ * Opens a child span around every public method of the {@code @Service} beans and every repository call, so a
+ * trace shows which service method and which query a request spent its time in. Requests that are not sampled
+ * skip straight to the call, which is why queries are traced here rather than with a JDBC proxy that would sit
+ * on every statement. Runs inside {@link ServiceMetricsAspect} and outside the transaction advice, so a service
+ * span includes the commit.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "spring.sleuth.enabled", matchIfMissing = true)
+@Order(ServiceMetricsAspect.ORDER + 1)
+public class TracingAspect {
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("within(ru.practicum.shareit..service..*) && @within(org.springframework.stereotype.Service) "
+            + "&& execution(public * *(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!sampled()) {
+            return joinPoint.proceed();
+        }
+        return trace(joinPoint, joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!sampled()) {
+            return joinPoint.proceed();
+        }
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis());
+        return trace(joinPoint, interfaces[0].getSimpleName());
+    }
+
+    private boolean sampled() {
+        Span current = tracer.currentSpan();
+        return current != null && Boolean.TRUE.equals(current.context().sampled());
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String component) throws Throwable {
+        Span span = tracer.nextSpan().name(component + "." + joinPoint.getSignature().getName()).start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.datasource.ReplicaRoutingDataSource;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.List;
@@ -10,5 +16,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findUsersByNameEqualsIgnoreCase(String name);
 
+    /**
+     * Positive answers are cached per instance. Deleting a user evicts the entry only on the instance that deleted
+     * it; the others keep answering true until the entry expires (spring.cache.caffeine.spec). Until then their
+     * inserts referencing the user fail on the foreign key and are answered with 404, and their reads return
+     * the user's empty lists instead of 404. Answers read from the replica are not cached, see
+     * {@link ReplicaRoutingDataSource#isReplicaTransaction()}.
+     */
+    @Cacheable(value = "users",
+            unless = "!#result or T(ru.practicum.shareit.datasource.ReplicaRoutingDataSource).isReplicaTransaction()")
     boolean existsUserById(Long id);
+
+    /**
+     * Bypasses the cache and runs in a transaction of its own on the primary, so it can be asked after a failed
+     * insert has aborted the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("select case when count(u) > 0 then true else false end from User u where u.id = :id")
+    boolean existsUserByIdUncached(@Param("id") Long id);
 }
@@ -5,6 +5,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingSummaryService;
+import ru.practicum.shareit.cache.AfterCommitEviction;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
@@ -19,10 +22,15 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingSummaryService bookingSummaryService;
+    private final AfterCommitEviction afterCommitEviction;
 
     @Transactional
     public UserDto addUser(User user) {
-        return UserMapper.toUserDto(userRepository.save(user));
+        User saved = userRepository.save(user);
+        bookingSummaryService.createSummaries(saved.getId());
+        return UserMapper.toUserDto(saved);
     }
 
     @Transactional
@@ -62,7 +70,12 @@ public class UserServiceImpl implements UserService {
 
     @Transactional
     public void deleteUserById(long userId) {
+        List<Long> bookerIds = bookingRepository.findBookerIdsOfOwner(userId);
+        List<Long> ownerIds = bookingRepository.findOwnerIdsOfBooker(userId);
         userRepository.deleteById(userId);
+        userRepository.flush();
+        afterCommitEviction.evict("users", userId);
+        bookingSummaryService.recount(bookerIds, ownerIds);
     }
 }
 
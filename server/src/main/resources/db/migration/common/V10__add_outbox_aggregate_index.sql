@@ -0,0 +1,2 @@
+-- events of one aggregate in id order: the dispatcher checks them for an event that ran out of attempts
+CREATE INDEX IF NOT EXISTS OUTBOX_EVENTS_AGGREGATE_IDX ON OUTBOX_EVENTS (TOPIC, AGGREGATE_ID, ID);
@@ -0,0 +1,3 @@
+-- the oldest event of an aggregate is claimed in a short transaction and stays claimed while its events are
+-- delivered, without a lock or a connection held; a dispatcher that dies leaves a claim that expires
+ALTER TABLE OUTBOX_EVENTS ADD COLUMN IF NOT EXISTS CLAIMED_UNTIL TIMESTAMP;
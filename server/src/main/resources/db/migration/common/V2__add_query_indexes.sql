@@ -0,0 +1,16 @@
+-- bookings of a booker: all states ordered by start, keyset pages by (start, id)
+CREATE INDEX IF NOT EXISTS BOOKINGS_BOOKER_START_IDX ON BOOKINGS (BOOKER_ID, START_BOOKING DESC, ID DESC);
+-- bookings of a booker by status (WAITING, REJECTED)
+CREATE INDEX IF NOT EXISTS BOOKINGS_BOOKER_STATUS_START_IDX ON BOOKINGS (BOOKER_ID, STATUS, START_BOOKING DESC, ID DESC);
+-- last/next booking of items, overlap check on approve, bookings of an owner joined through ITEMS
+CREATE INDEX IF NOT EXISTS BOOKINGS_ITEM_STATUS_START_IDX ON BOOKINGS (ITEM_ID, STATUS, START_BOOKING);
+
+-- items of an owner ordered by name, keyset pages by (name, id)
+CREATE INDEX IF NOT EXISTS ITEMS_OWNER_NAME_IDX ON ITEMS (OWNER_ID, NAME DESC, ID DESC);
+
+-- comments of items ordered by creation
+CREATE INDEX IF NOT EXISTS COMMENTS_ITEM_CREATED_IDX ON COMMENTS (ITEM_ID, CREATED);
+
+-- own requests and requests of other users, both ordered by creation
+CREATE INDEX IF NOT EXISTS REQUESTS_REQUESTOR_CREATED_IDX ON REQUESTS (REQUEST_ID, CREATED DESC, ID DESC);
+CREATE INDEX IF NOT EXISTS REQUESTS_CREATED_IDX ON REQUESTS (CREATED DESC, ID DESC);
@@ -0,0 +1,38 @@
+-- per-user booking counters by status, one row for the user as booker and one as owner of the booked items;
+-- NEXT_* hold the earliest WAITING/APPROVED booking still ahead, NEXT_START in the past means "look it up again"
+CREATE TABLE IF NOT EXISTS BOOKING_SUMMARIES
+(
+    USER_ID         BIGINT      REFERENCES USERS (id) ON DELETE CASCADE NOT NULL,
+    ROLE            VARCHAR(16)                                          NOT NULL,
+    WAITING         BIGINT      DEFAULT 0                                NOT NULL,
+    APPROVED        BIGINT      DEFAULT 0                                NOT NULL,
+    REJECTED        BIGINT      DEFAULT 0                                NOT NULL,
+    CANCELED        BIGINT      DEFAULT 0                                NOT NULL,
+    NEXT_BOOKING_ID BIGINT,
+    NEXT_START      TIMESTAMP,
+    PRIMARY KEY (USER_ID, ROLE)
+);
+
+-- backfill; the next booking is left to be looked up on the first read
+INSERT INTO BOOKING_SUMMARIES (USER_ID, ROLE, WAITING, APPROVED, REJECTED, CANCELED, NEXT_START)
+SELECT u.ID, 'BOOKER',
+       COALESCE(SUM(CASE WHEN b.STATUS = 'WAITING' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN b.STATUS = 'APPROVED' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN b.STATUS = 'REJECTED' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN b.STATUS = 'CANCELED' THEN 1 ELSE 0 END), 0),
+       TIMESTAMP '1970-01-01 00:00:00'
+FROM USERS u
+         LEFT JOIN BOOKINGS b ON b.BOOKER_ID = u.ID
+GROUP BY u.ID;
+
+INSERT INTO BOOKING_SUMMARIES (USER_ID, ROLE, WAITING, APPROVED, REJECTED, CANCELED, NEXT_START)
+SELECT u.ID, 'OWNER',
+       COALESCE(SUM(CASE WHEN b.STATUS = 'WAITING' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN b.STATUS = 'APPROVED' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN b.STATUS = 'REJECTED' THEN 1 ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN b.STATUS = 'CANCELED' THEN 1 ELSE 0 END), 0),
+       TIMESTAMP '1970-01-01 00:00:00'
+FROM USERS u
+         LEFT JOIN ITEMS i ON i.OWNER_ID = u.ID
+         LEFT JOIN BOOKINGS b ON b.ITEM_ID = i.ID
+GROUP BY u.ID;
@@ -0,0 +1,13 @@
+-- transactional outbox: events are inserted in the transaction that changes the data and deleted once every
+-- consumer has handled them; ATTEMPTS counts failed deliveries
+CREATE SEQUENCE IF NOT EXISTS OUTBOX_EVENTS_SEQ START WITH 50 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS OUTBOX_EVENTS
+(
+    ID           BIGINT PRIMARY KEY NOT NULL,
+    TOPIC        VARCHAR(64)        NOT NULL,
+    AGGREGATE_ID BIGINT             NOT NULL,
+    PAYLOAD      VARCHAR            NOT NULL,
+    CREATED      TIMESTAMP          NOT NULL,
+    ATTEMPTS     INT DEFAULT 0      NOT NULL
+);
@@ -0,0 +1,2 @@
+-- WAITING bookings whose start has passed are moved to EXPIRED by a scheduled job
+ALTER TABLE BOOKING_SUMMARIES ADD COLUMN IF NOT EXISTS EXPIRED BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,3 @@
+-- H2 has neither partial nor trigram indexes, plain ones keep the same query plans for tests and load runs
+CREATE INDEX IF NOT EXISTS ITEMS_REQUEST_IDX ON ITEMS (REQUEST_ID);
+CREATE INDEX IF NOT EXISTS BOOKINGS_APPROVED_ITEM_BOOKER_END_IDX ON BOOKINGS (ITEM_ID, BOOKER_ID, END_BOOKING);
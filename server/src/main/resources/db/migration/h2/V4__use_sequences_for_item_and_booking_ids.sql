@@ -0,0 +1,6 @@
+-- the H2 database lives in memory and starts empty, so the sequences start right away at 50
+ALTER TABLE ITEMS ALTER COLUMN ID DROP IDENTITY;
+ALTER TABLE BOOKINGS ALTER COLUMN ID DROP IDENTITY;
+
+CREATE SEQUENCE IF NOT EXISTS ITEMS_SEQ START WITH 50 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS BOOKINGS_SEQ START WITH 50 INCREMENT BY 50;
@@ -0,0 +1,2 @@
+-- H2 has no partial indexes, the status goes first instead
+CREATE INDEX IF NOT EXISTS BOOKINGS_STATUS_START_IDX ON BOOKINGS (STATUS, START_BOOKING, ID);
@@ -0,0 +1,2 @@
+-- H2 has no table partitioning, BOOKINGS stays one table; the PostgreSQL migration splits it by END_BOOKING
+SELECT 1;
@@ -0,0 +1,11 @@
+-- substring search over available items
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS ITEMS_NAME_TRGM_IDX ON ITEMS USING GIN (lower(NAME) gin_trgm_ops) WHERE IS_AVAILABLE;
+CREATE INDEX IF NOT EXISTS ITEMS_DESCRIPTION_TRGM_IDX ON ITEMS USING GIN (lower(DESCRIPTION) gin_trgm_ops) WHERE IS_AVAILABLE;
+
+-- answers to requests, most items are not tied to one
+CREATE INDEX IF NOT EXISTS ITEMS_REQUEST_IDX ON ITEMS (REQUEST_ID) WHERE REQUEST_ID IS NOT NULL;
+
+-- finished approved booking of the author before a comment is accepted
+CREATE INDEX IF NOT EXISTS BOOKINGS_APPROVED_ITEM_BOOKER_END_IDX ON BOOKINGS (ITEM_ID, BOOKER_ID, END_BOOKING)
+    WHERE STATUS = 'APPROVED';
@@ -0,0 +1,10 @@
+-- ids of items and bookings come from pooled sequences (allocationSize 50) so Hibernate can batch inserts;
+-- the pooled optimizer hands out (value - 49 .. value), hence the first value is max(id) + 50
+ALTER TABLE ITEMS ALTER COLUMN ID DROP IDENTITY IF EXISTS;
+ALTER TABLE BOOKINGS ALTER COLUMN ID DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS ITEMS_SEQ INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS BOOKINGS_SEQ INCREMENT BY 50;
+
+SELECT setval('ITEMS_SEQ', coalesce(max(ID), 0) + 50, false) FROM ITEMS;
+SELECT setval('BOOKINGS_SEQ', coalesce(max(ID), 0) + 50, false) FROM BOOKINGS;
@@ -0,0 +1,2 @@
+-- WAITING bookings by start for the expiry job; the index only holds the (small) WAITING working set
+CREATE INDEX IF NOT EXISTS BOOKINGS_WAITING_START_IDX ON BOOKINGS (START_BOOKING, ID) WHERE STATUS = 'WAITING';
@@ -0,0 +1,51 @@
+-- BOOKINGS becomes range partitioned by END_BOOKING: one partition per month (BOOKINGS_Pyyyymm) for the last
+-- 12 and the next 12 months, BOOKINGS_HISTORY for everything older and BOOKINGS_DEFAULT for ends past the last
+-- month created. BookingPartitionJob keeps creating months ahead and moves old partitions to cold storage.
+-- The primary key has to contain the partition key; ids still come from BOOKINGS_SEQ.
+ALTER TABLE BOOKINGS RENAME TO BOOKINGS_UNPARTITIONED;
+
+CREATE TABLE BOOKINGS
+(
+    ID            BIGINT                                       NOT NULL,
+    START_BOOKING TIMESTAMP                                    NOT NULL,
+    END_BOOKING   TIMESTAMP                                    NOT NULL,
+    ITEM_ID       BIGINT REFERENCES ITEMS (id) ON DELETE CASCADE,
+    BOOKER_ID     BIGINT REFERENCES USERS (id) ON DELETE CASCADE,
+    STATUS        VARCHAR,
+    PRIMARY KEY (ID, END_BOOKING)
+) PARTITION BY RANGE (END_BOOKING);
+
+CREATE TABLE BOOKINGS_DEFAULT PARTITION OF BOOKINGS DEFAULT;
+
+DO
+$$
+    DECLARE
+        first_month DATE := date_trunc('month', now()) - INTERVAL '12 months';
+        month       DATE := first_month;
+    BEGIN
+        EXECUTE format('CREATE TABLE BOOKINGS_HISTORY PARTITION OF BOOKINGS FOR VALUES FROM (MINVALUE) TO (%L)',
+                       first_month);
+        WHILE month <= date_trunc('month', now()) + INTERVAL '12 months'
+            LOOP
+                EXECUTE format('CREATE TABLE BOOKINGS_P%s PARTITION OF BOOKINGS FOR VALUES FROM (%L) TO (%L)',
+                               to_char(month, 'YYYYMM'), month, month + INTERVAL '1 month');
+                month := month + INTERVAL '1 month';
+            END LOOP;
+    END
+$$;
+
+INSERT INTO BOOKINGS (ID, START_BOOKING, END_BOOKING, ITEM_ID, BOOKER_ID, STATUS)
+SELECT ID, START_BOOKING, END_BOOKING, ITEM_ID, BOOKER_ID, STATUS
+FROM BOOKINGS_UNPARTITIONED;
+
+DROP TABLE BOOKINGS_UNPARTITIONED;
+
+-- the indexes of V2, V3 and V8, created on every partition
+CREATE INDEX IF NOT EXISTS BOOKINGS_BOOKER_START_IDX ON BOOKINGS (BOOKER_ID, START_BOOKING DESC, ID DESC);
+CREATE INDEX IF NOT EXISTS BOOKINGS_BOOKER_STATUS_START_IDX ON BOOKINGS (BOOKER_ID, STATUS, START_BOOKING DESC, ID DESC);
+CREATE INDEX IF NOT EXISTS BOOKINGS_ITEM_STATUS_START_IDX ON BOOKINGS (ITEM_ID, STATUS, START_BOOKING);
+CREATE INDEX IF NOT EXISTS BOOKINGS_APPROVED_ITEM_BOOKER_END_IDX ON BOOKINGS (ITEM_ID, BOOKER_ID, END_BOOKING)
+    WHERE STATUS = 'APPROVED';
+CREATE INDEX IF NOT EXISTS BOOKINGS_WAITING_START_IDX ON BOOKINGS (START_BOOKING, ID) WHERE STATUS = 'WAITING';
+
+ANALYZE BOOKINGS;
@@ -0,0 +1,21 @@
+package ru.practicum.shareit;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the test against the in-memory H2 database of the {@code h2} profile, in the context all such tests share.
+ * Test-specific properties go into {@code @TestPropertySource}; the schedulers are off for every test context in
+ * {@code config/application.properties} of the tests.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest
+@ActiveProfiles("h2")
+public @interface H2Test {
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the test against PostgreSQL: the database in SHAREIT_TEST_POSTGRES_URL when the variable is set, otherwise a
+ * PostgreSQL 15 container, the version docker-compose runs, started once for all such tests. Without the variable
+ * and Docker the test is skipped, unless {@code shareit.test.postgres.required} is set (the {@code postgres-tests}
+ * profile); then it fails. The database is cleaned and migrated from scratch when the context starts, so it must be
+ * used by tests only.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(PostgresTest.Available.class)
+@SpringBootTest
+@ContextConfiguration(initializers = PostgresTest.Database.class)
+@Import(PostgresTest.CleanMigration.class)
+public @interface PostgresTest {
+    String URL_VARIABLE = "SHAREIT_TEST_POSTGRES_URL";
+    String REQUIRED_PROPERTY = "shareit.test.postgres.required";
+
+    class Available implements ExecutionCondition {
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            if (Database.hasUrl() || Boolean.getBoolean(REQUIRED_PROPERTY)) {
+                return ConditionEvaluationResult.enabled("PostgreSQL обязателен");
+            }
+            if (DockerClientFactory.instance().isDockerAvailable()) {
+                return ConditionEvaluationResult.enabled("PostgreSQL запускается в Docker");
+            }
+            return ConditionEvaluationResult.disabled(String.format("нет ни %s, ни Docker", URL_VARIABLE));
+        }
+    }
+
+    class Database implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        private static PostgreSQLContainer<?> container;
+
+        @Override
+        public void initialize(ConfigurableApplicationContext context) {
+            if (hasUrl()) {
+                TestPropertyValues.of(
+                        "spring.datasource.url=${" + URL_VARIABLE + "}",
+                        "spring.datasource.username=${SHAREIT_TEST_POSTGRES_USERNAME:root}",
+                        "spring.datasource.password=${SHAREIT_TEST_POSTGRES_PASSWORD:root}"
+                ).applyTo(context);
+                return;
+            }
+            PostgreSQLContainer<?> postgres = container();
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgres.getJdbcUrl(),
+                    "spring.datasource.username=" + postgres.getUsername(),
+                    "spring.datasource.password=" + postgres.getPassword()
+            ).applyTo(context);
+        }
+
+        static boolean hasUrl() {
+            String url = System.getenv(URL_VARIABLE);
+            return url != null && !url.isBlank();
+        }
+
+        /**
+         * UTF8 with the C.UTF-8 locale, like the database the README asks for: lower() and LIKE of the searches
+         * must know Cyrillic. The container lives until the JVM exits.
+         */
+        private static synchronized PostgreSQLContainer<?> container() {
+            if (container == null) {
+                container = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15"))
+                        .withEnv("POSTGRES_INITDB_ARGS", "--encoding=UTF8 --locale=C.UTF-8");
+                container.start();
+            }
+            return container;
+        }
+    }
+
+    @TestConfiguration
+    class CleanMigration {
+        @Bean
+        FlywayMigrationStrategy cleanMigrationStrategy() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+}
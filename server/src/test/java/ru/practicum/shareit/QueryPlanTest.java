@@ -0,0 +1,269 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans of the hot queries on seeded PostgreSQL tables. Each case calls a repository method the way the services
+ * do; the statements it sends are caught on their way to the driver, with their parameters bound, and explained.
+ * None of them may read a table with a Seq Scan, so a changed query or mapping is checked as it is, not as
+ * someone copied it by hand.
+ */
+@PostgresTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+    private static final long ID = 1_000_000L;
+    private static final int USERS = 2_000;
+    private static final int REQUESTS = 20_000;
+    private static final int ITEMS = 50_000;
+    private static final int BOOKINGS = 200_000;
+    private static final int COMMENTS = 20_000;
+    private static final long USER_ID = ID + 1;
+    private static final long LAST_ID = 2_000_000L;
+    private static final List<Long> ITEM_IDS = List.of(ID + 1, ID + 2_001, ID + 4_001, ID + 6_001, ID + 8_001);
+    private static final int PAGE = 20;
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Bookings end from two years ago to seventeen months ahead, so BOOKINGS_HISTORY, every monthly partition and
+     * BOOKINGS_DEFAULT have rows. VACUUM stands in for autovacuum: until it runs, the GIN indexes report no
+     * statistics and the planner prices them far above a scan of the table.
+     */
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("insert into users (id, name, email) "
+                + " select ? + g, 'user' || g, 'plan-' || g || '@example.com' from generate_series(1, ?) g", ID, USERS);
+        jdbcTemplate.update("insert into requests (id, description, request_id, created) "
+                + " select ? + g, 'нужно ' || md5(g::text), ? + 1 + g % ?, now() - g * interval '1 minute' "
+                + " from generate_series(1, ?) g", ID, ID, USERS, REQUESTS);
+        jdbcTemplate.update("insert into items (id, name, description, is_available, owner_id, request_id) "
+                + " select ? + g, case when g % 1000 = 0 then 'Дрель ' || g else 'вещь ' || md5(g::text) end, "
+                + " md5(g::text || 'описание'), g % 5 <> 0, ? + 1 + g % ?, "
+                + " case when g % 10 = 0 then ? + 1 + g % ? end "
+                + " from generate_series(1, ?) g", ID, ID, USERS, ID, REQUESTS, ITEMS);
+        jdbcTemplate.update("insert into bookings (id, start_booking, end_booking, item_id, booker_id, status) "
+                + " select ? + g, date_trunc('hour', now()) - interval '24 months' + g * interval '9 minutes', "
+                + " date_trunc('hour', now()) - interval '24 months' + g * interval '9 minutes' + interval '1 day', "
+                + " ? + 1 + g % ?, ? + 1 + (g * 7) % ?, "
+                + " (array['WAITING', 'APPROVED', 'APPROVED', 'REJECTED', 'CANCELED'])[1 + g % 5] "
+                + " from generate_series(1, ?) g", ID, ID, ITEMS, ID, USERS, BOOKINGS);
+        jdbcTemplate.update("insert into comments (id, text, item_id, author_id, created) "
+                + " select ? + g, 'отзыв ' || g, ? + 1 + g % ?, ? + 1 + g % ?, now() - g * interval '1 hour' "
+                + " from generate_series(1, ?) g", ID, ID, ITEMS, ID, USERS, COMMENTS);
+        jdbcTemplate.execute("vacuum analyze");
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("delete from comments where id > ?", ID);
+        jdbcTemplate.update("delete from bookings where id > ?", ID);
+        jdbcTemplate.update("delete from items where id > ?", ID);
+        jdbcTemplate.update("delete from requests where id > ?", ID);
+        jdbcTemplate.update("delete from users where id > ?", ID);
+    }
+
+    Stream<Arguments> queries() {
+        LocalDateTime now = LocalDateTime.now();
+        Cursor cursor = Cursor.of(now, LAST_ID);
+        return Stream.of(
+                Arguments.of("ItemRepository.searchAvailableItems", (Runnable) () ->
+                        itemRepository.searchAvailableItems("дрель", PageRequest.of(0, PAGE))),
+                Arguments.of("ItemRepository.searchAvailableItemsAfter", (Runnable) () ->
+                        itemRepository.searchAvailableItemsAfter("дрель", 0, LAST_ID, PageRequest.ofSize(PAGE))),
+                Arguments.of("ItemRepository.findAllByOwnerIdAfter", (Runnable) () ->
+                        itemRepository.findAllByOwnerIdAfter(USER_ID, "м", LAST_ID, PageRequest.ofSize(PAGE))),
+                Arguments.of("ItemRepository.findAllByRequestIdIn", (Runnable) () ->
+                        itemRepository.findAllByRequestIdIn(List.of(ID + 1, ID + 2))),
+                Arguments.of("BookingRepository.findPage ALL of booker after cursor", (Runnable) () ->
+                        bookingRepository.findPage(BookingSpecifications.ofBooker(USER_ID)
+                                .and(BookingSpecifications.inState(State.ALL, now))
+                                .and(BookingSpecifications.after(cursor)), 0, PAGE)),
+                Arguments.of("BookingRepository.findPage WAITING of booker", (Runnable) () ->
+                        bookingRepository.findPage(BookingSpecifications.ofBooker(USER_ID)
+                                .and(BookingSpecifications.inState(State.WAITING, now)), 0, PAGE)),
+                Arguments.of("BookingRepository.findPage PAST of booker", (Runnable) () ->
+                        bookingRepository.findPage(BookingSpecifications.ofBooker(USER_ID)
+                                .and(BookingSpecifications.inState(State.PAST, now)), 0, PAGE)),
+                Arguments.of("BookingRepository.findPage CURRENT of owner", (Runnable) () ->
+                        bookingRepository.findPage(BookingSpecifications.ofOwner(USER_ID)
+                                .and(BookingSpecifications.inState(State.CURRENT, now)), 0, PAGE)),
+                Arguments.of("BookingRepository.findLastBookingsOfItems", (Runnable) () ->
+                        bookingRepository.findLastBookingsOfItems(ITEM_IDS, BookingStatus.APPROVED, now)),
+                Arguments.of("BookingRepository.findNextBookingsOfItems", (Runnable) () ->
+                        bookingRepository.findNextBookingsOfItems(ITEM_IDS, BookingStatus.APPROVED, now)),
+                Arguments.of("BookingRepository.findFirstByItemIdAndBookerIdAndStatusAndEndBefore", (Runnable) () ->
+                        bookingRepository.findFirstByItemIdAndBookerIdAndStatusAndEndBefore(ID + 1, USER_ID,
+                                BookingStatus.APPROVED, now)),
+                Arguments.of("BookingRepository.findStartedForUpdate", (Runnable) () ->
+                        bookingRepository.findStartedForUpdate(BookingStatus.WAITING, now, PageRequest.ofSize(500))),
+                Arguments.of("ItemRequestRepository.findAllByRequestorIdAfter", (Runnable) () ->
+                        itemRequestRepository.findAllByRequestorIdAfter(USER_ID, now, LAST_ID,
+                                PageRequest.ofSize(PAGE))),
+                Arguments.of("ItemRequestRepository.findAllByRequestorIdNotAfter", (Runnable) () ->
+                        itemRequestRepository.findAllByRequestorIdNotAfter(USER_ID, now, LAST_ID,
+                                PageRequest.ofSize(PAGE))),
+                Arguments.of("CommentRepository.findAllByItemIdIn", (Runnable) () ->
+                        commentRepository.findAllByItemIdIn(ITEM_IDS, Sort.by(Sort.Direction.ASC, "created")))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void hotQueryDoesNotScanTables(String query, Runnable call) throws Exception {
+        List<String> statements = statementRecorder.record(() -> transactionTemplate.executeWithoutResult(
+                status -> call.run()));
+
+        assertThat(statements).as(query).isNotEmpty();
+        for (String statement : statements) {
+            String plan = jdbcTemplate.queryForObject("explain (format json) " + statement, String.class);
+
+            List<String> scanned = new ArrayList<>();
+            collectSeqScans(objectMapper.readTree(plan), scanned);
+
+            assertThat(scanned).as("%s:%n%s%n%s", query, statement, plan).isEmpty();
+        }
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> scanned) {
+        if (node.isArray()) {
+            node.forEach(child -> collectSeqScans(child, scanned));
+            return;
+        }
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            scanned.add(node.path("Relation Name").asText());
+        }
+        if (node.has("Plan")) {
+            collectSeqScans(node.get("Plan"), scanned);
+        }
+        if (node.has("Plans")) {
+            collectSeqScans(node.get("Plans"), scanned);
+        }
+    }
+
+    @TestConfiguration
+    static class Recording {
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+
+    /**
+     * Wraps the data source so that, while {@link #record} runs, every prepared statement executed through it is
+     * kept as the PostgreSQL driver prints it: the SQL Hibernate generated with the bound values in place of the
+     * parameters.
+     */
+    static class StatementRecorder implements BeanPostProcessor {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+        private volatile boolean recording;
+
+        List<String> record(Runnable call) {
+            statements.clear();
+            recording = true;
+            try {
+                call.run();
+            } finally {
+                recording = false;
+            }
+            return List.copyOf(statements);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!"dataSource".equals(beanName) || !(bean instanceof DataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource((DataSource) bean) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return recording(super.getConnection());
+                }
+            };
+        }
+
+        private Connection recording(Connection connection) {
+            return proxy(Connection.class, (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                return "prepareStatement".equals(method.getName())
+                        ? recording((PreparedStatement) result)
+                        : result;
+            });
+        }
+
+        private PreparedStatement recording(PreparedStatement statement) {
+            return proxy(PreparedStatement.class, (proxy, method, args) -> {
+                if (recording && method.getName().startsWith("execute") && method.getParameterCount() == 0) {
+                    statements.add(statement.unwrap(PreparedStatement.class).toString());
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.user.TestUsers;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * JDBC statements per list request, counted by Hibernate statistics. A page costs the same number of statements
+ * whether it has 2 rows or 10: the item, booker and comment author of each row come with the page, not one by one.
+ * The users cache is warm, so the existence check of the caller costs nothing.
+ */
+@H2Test
+@AutoConfigureMockMvc
+class StatementCountTest {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final int ITEMS = 10;
+    private static final String[] STATES = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"};
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+
+    /**
+     * Every item has a finished, a current, a future, a waiting and a rejected booking of one booker and two
+     * comments of different authors, so every state of both booking lists has at least ITEMS rows.
+     */
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = TestUsers.add(userRepository, "owner");
+        booker = TestUsers.add(userRepository, "booker");
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = itemRepository.save(Item.builder()
+                    .name("Дрель " + i)
+                    .description("Простая дрель")
+                    .available(true)
+                    .owner(owner)
+                    .build());
+            bookings.add(booking(item, now.minusDays(3), now.minusDays(2), BookingStatus.APPROVED));
+            bookings.add(booking(item, now.minusHours(1), now.plusHours(1), BookingStatus.APPROVED));
+            bookings.add(booking(item, now.plusDays(2), now.plusDays(3), BookingStatus.APPROVED));
+            bookings.add(booking(item, now.plusDays(4), now.plusDays(5), BookingStatus.WAITING));
+            bookings.add(booking(item, now.plusDays(6), now.plusDays(7), BookingStatus.REJECTED));
+            for (int c = 0; c < 2; c++) {
+                commentRepository.save(Comment.builder()
+                        .text("Отличная дрель")
+                        .item(item)
+                        .author(TestUsers.add(userRepository, "author"))
+                        .created(now.minusDays(1))
+                        .build());
+            }
+        }
+        bookingRepository.saveAll(bookings);
+        userRepository.existsUserById(owner.getId());
+        userRepository.existsUserById(booker.getId());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, ITEMS})
+    void itemsOfOwnerTakeFourStatements(int size) throws Exception {
+        // items, last bookings, next bookings, comments with their authors
+        assertThat(count("/items?from=0&size=" + size, owner, size)).isEqualTo(4);
+    }
+
+    @Test
+    void nextItemsPageTakesFourStatements() throws Exception {
+        String after = mvc.perform(get("/items?from=0&size=2").header(USER_ID_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(Cursor.NEXT_CURSOR_HEADER);
+
+        assertThat(after).isNotNull();
+        assertThat(count("/items?size=2&after=" + after, owner, 2)).isEqualTo(4);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, ITEMS})
+    void bookingsOfBookerTakeOneStatement(int size) throws Exception {
+        for (String state : STATES) {
+            assertThat(count("/bookings?state=" + state + "&from=0&size=" + size, booker, size))
+                    .as(state).isEqualTo(1);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, ITEMS})
+    void bookingsOfOwnerTakeOneStatement(int size) throws Exception {
+        for (String state : STATES) {
+            assertThat(count("/bookings/owner?state=" + state + "&from=0&size=" + size, owner, size))
+                    .as(state).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Statements prepared while serving the request, which must return a full page.
+     */
+    private long count(String uri, User user, int size) throws Exception {
+        statistics.clear();
+        mvc.perform(get(uri).header(USER_ID_HEADER, user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Booking booking(Item item, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(end)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.shareit.H2Test;
+import ru.practicum.shareit.booking.dto.InputBookingDto;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.TestUsers;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admission of overlapping bookings from parallel threads: whatever the interleaving, an item never has two
+ * APPROVED bookings for overlapping periods.
+ */
+@H2Test
+class BookingConcurrencyTest {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private ExecutorService executor;
+    private User owner;
+    private Item item;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        owner = TestUsers.add(userRepository, "owner");
+        item = itemRepository.save(Item.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .owner(owner)
+                .build());
+        base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void onlyOneOfParallelApprovalsForSamePeriodSucceeds() throws Exception {
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long bookerId = TestUsers.add(userRepository, "booker").getId();
+            bookingIds.add(bookingService.addBooking(
+                    new InputBookingDto(item.getId(), base, base.plusHours(4)), bookerId).getId());
+        }
+
+        List<Callable<OutputBookingDto>> approvals = bookingIds.stream()
+                .map(bookingId -> (Callable<OutputBookingDto>) () ->
+                        bookingService.approveBooking(bookingId, owner.getId(), true))
+                .collect(Collectors.toList());
+        List<Throwable> failures = runTogether(approvals);
+
+        assertThat(failures).hasSize(THREADS - 1).allMatch(ValidationException.class::isInstance);
+        assertThat(approved()).hasSize(1);
+    }
+
+    @Test
+    void parallelBookingsAndApprovalsNeverOverlap() throws Exception {
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long bookerId = TestUsers.add(userRepository, "booker").getId();
+            Random random = new Random(t);
+            workers.add(() -> {
+                for (int i = 0; i < 20; i++) {
+                    LocalDateTime start = base.plusHours(random.nextInt(48));
+                    LocalDateTime end = start.plusHours(1 + random.nextInt(6));
+                    try {
+                        long bookingId = bookingService.addBooking(
+                                new InputBookingDto(item.getId(), start, end), bookerId).getId();
+                        bookingService.approveBooking(bookingId, owner.getId(), true);
+                    } catch (ValidationException e) {
+                        // the period is taken by a booking approved in another thread
+                    }
+                }
+                return null;
+            });
+        }
+        assertThat(runTogether(workers)).isEmpty();
+
+        List<Booking> approved = approved();
+        assertThat(approved).isNotEmpty();
+        for (int i = 1; i < approved.size(); i++) {
+            assertThat(approved.get(i).getStart()).isAfterOrEqualTo(approved.get(i - 1).getEnd());
+        }
+    }
+
+    /**
+     * Starts all tasks at once and returns what they threw.
+     */
+    private <T> List<Throwable> runTogether(List<Callable<T>> tasks) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<T> future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                failures.add(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        return failures;
+    }
+
+    private List<Booking> approved() {
+        return bookingRepository.findAllByItemIdInAndStatusAndStartBeforeAndEndAfter(List.of(item.getId()),
+                        BookingStatus.APPROVED, base.plusYears(1), base.minusYears(1))
+                .stream()
+                .sorted(Comparator.comparing(Booking::getStart))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.PostgresTest;
+import ru.practicum.shareit.booking.dto.BookingFilter;
+import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.user.TestUsers;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Booking lists over the END_BOOKING partitions of PostgreSQL: the bookings of one booker end in
+ * BOOKINGS_HISTORY, in two monthly partitions and in BOOKINGS_DEFAULT, and every list still returns them in one
+ * order, newest start first.
+ */
+@PostgresTest
+class BookingPartitionTest {
+    private static final BookingFilter NO_FILTER = new BookingFilter(null, null, null);
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User booker;
+    private Booking history;
+    private Booking twoMonthsAgo;
+    private Booking lastWeek;
+    private Booking nextWeek;
+    private Booking inFiveYears;
+
+    @BeforeEach
+    void setUp() {
+        owner = TestUsers.add(userRepository, "owner");
+        booker = TestUsers.add(userRepository, "booker");
+        Item item = itemRepository.save(Item.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .owner(owner)
+                .build());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        history = booking(item, now.minusYears(2));
+        twoMonthsAgo = booking(item, now.minusMonths(2));
+        lastWeek = booking(item, now.minusWeeks(1));
+        nextWeek = booking(item, now.plusWeeks(1));
+        inFiveYears = booking(item, now.plusYears(5));
+        bookingRepository.saveAll(List.of(history, twoMonthsAgo, lastWeek, nextWeek, inFiveYears));
+    }
+
+    @Test
+    void bookingsEndInHistoryMonthlyAndDefaultPartitions() {
+        Map<Long, String> partitions = partitionsOfBooker();
+
+        assertThat(partitions.get(history.getId())).isEqualTo("bookings_history");
+        assertThat(partitions.get(twoMonthsAgo.getId())).startsWith("bookings_p");
+        assertThat(partitions.get(lastWeek.getId())).startsWith("bookings_p")
+                .isNotEqualTo(partitions.get(twoMonthsAgo.getId()));
+        assertThat(partitions.get(inFiveYears.getId())).isEqualTo("bookings_default");
+    }
+
+    @Test
+    void pastReadsHistoryAndMonthlyPartitions() {
+        assertThat(ids(bookingService.getBookingsOfBooker("PAST", booker.getId(), NO_FILTER, 0, 10, null)))
+                .containsExactly(lastWeek.getId(), twoMonthsAgo.getId(), history.getId());
+        assertThat(ids(bookingService.getBookingsOfOwner("PAST", owner.getId(), NO_FILTER, 0, 10, null)))
+                .containsExactly(lastWeek.getId(), twoMonthsAgo.getId(), history.getId());
+    }
+
+    @Test
+    void allReadsEveryPartition() {
+        List<Long> expected = List.of(inFiveYears.getId(), nextWeek.getId(), lastWeek.getId(),
+                twoMonthsAgo.getId(), history.getId());
+
+        assertThat(ids(bookingService.getBookingsOfBooker("ALL", booker.getId(), NO_FILTER, 0, 10, null)))
+                .isEqualTo(expected);
+        assertThat(ids(bookingService.getBookingsOfOwner("ALL", owner.getId(), NO_FILTER, 0, 10, null)))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void cursorPagesOfAllCrossPartitions() {
+        List<Long> seen = new ArrayList<>();
+        Cursor after = null;
+        List<OutputBookingDto> page;
+        do {
+            page = bookingService.getBookingsOfBooker("ALL", booker.getId(), NO_FILTER, 0, 2, after);
+            seen.addAll(ids(page));
+            if (!page.isEmpty()) {
+                OutputBookingDto last = page.get(page.size() - 1);
+                after = Cursor.of(last.getStart(), last.getId());
+            }
+        } while (page.size() == 2);
+
+        assertThat(seen).containsExactly(inFiveYears.getId(), nextWeek.getId(), lastWeek.getId(),
+                twoMonthsAgo.getId(), history.getId());
+    }
+
+    private Map<Long, String> partitionsOfBooker() {
+        return jdbcTemplate.query("select id, tableoid::regclass::text as partition from bookings where booker_id = ?",
+                        (rs, rowNum) -> Map.entry(rs.getLong("id"), rs.getString("partition")), booker.getId())
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private static List<Long> ids(List<OutputBookingDto> bookings) {
+        return bookings.stream().map(OutputBookingDto::getId).collect(Collectors.toList());
+    }
+
+    private Booking booking(Item item, LocalDateTime end) {
+        return Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(end.minusDays(1))
+                .end(end)
+                .status(BookingStatus.APPROVED)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.H2Test;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.TestUsers;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Entries of the users and items caches are evicted only once the change has committed, and a read after the
+ * change no longer sees the cached value.
+ */
+@H2Test
+class AfterCommitEvictionTest {
+    @Autowired
+    private AfterCommitEviction afterCommitEviction;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+
+    @Test
+    void entryIsEvictedAfterCommit() {
+        Cache users = cacheManager.getCache("users");
+        users.put(-1L, true);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            afterCommitEviction.evict("users", -1L);
+            assertThat(users.get(-1L)).isNotNull();
+        });
+
+        assertThat(users.get(-1L)).isNull();
+    }
+
+    @Test
+    void entryIsKeptWhenTransactionRollsBack() {
+        Cache users = cacheManager.getCache("users");
+        users.put(-2L, true);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            afterCommitEviction.evict("users", -2L);
+            status.setRollbackOnly();
+        });
+
+        assertThat(users.get(-2L)).isNotNull();
+    }
+
+    @Test
+    void deletedUserIsEvicted() {
+        long userId = TestUsers.add(userRepository, "owner").getId();
+        assertThat(userRepository.existsUserById(userId)).isTrue();
+
+        userService.deleteUserById(userId);
+
+        assertThat(cacheManager.getCache("users").get(userId)).isNull();
+        assertThat(userRepository.existsUserById(userId)).isFalse();
+    }
+
+    @Test
+    void updatedItemIsReadAgain() {
+        long ownerId = TestUsers.add(userRepository, "owner").getId();
+        long itemId = itemService.addItem(ownerId, item()).getId();
+        assertThat(itemService.getItemDtoById(itemId, ownerId).getName()).isEqualTo("Дрель");
+
+        itemService.updateItem(ownerId, itemId, ItemDto.builder().name("Перфоратор").build());
+
+        assertThat(itemService.getItemDtoById(itemId, ownerId).getName()).isEqualTo("Перфоратор");
+    }
+
+    @Test
+    void deletedItemIsNotFound() {
+        long ownerId = TestUsers.add(userRepository, "owner").getId();
+        long itemId = itemService.addItem(ownerId, item()).getId();
+        itemService.getItemDtoById(itemId, ownerId);
+
+        itemService.deleteItemById(ownerId, itemId);
+
+        assertThatThrownBy(() -> itemService.getItemDtoById(itemId, ownerId))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private static ItemDto item() {
+        return ItemDto.builder().name("Дрель").description("Простая дрель").available(true).build();
+    }
+}
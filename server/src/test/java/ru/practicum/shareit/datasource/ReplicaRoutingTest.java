@@ -0,0 +1,243 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.H2Test;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two H2 databases stand for the primary and the replica. They are migrated separately and never replicate, so
+ * the rows a request sees tell which of them it was routed to.
+ */
+@H2Test
+@TestPropertySource(properties = {
+        "shareit.datasource.replica.enabled=true",
+        "shareit.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "shareit.datasource.replica.max-lag-ms=60000",
+        "shareit.datasource.replica.lag-query=select lag_ms from replica_lag",
+        "spring.datasource.hikari.pool-name=shareit"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private static JdbcTemplate replica;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private JdbcTemplate primary;
+
+    @BeforeAll
+    static void migrateReplica() {
+        DataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "test", "test");
+        Flyway.configure()
+                .dataSource(replicaDataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("create table if not exists replica_lag (lag_ms bigint)");
+        replica.update("delete from replica_lag");
+        replica.update("insert into replica_lag values (0)");
+        replica.update("insert into users (id, name, email) values (1000, 'replica', 'replica@example.com')");
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        setLag(0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        setLag(0L);
+    }
+
+    @Test
+    void poolNamesAreNotOverriddenBySettings() {
+        assertThat(((HikariDataSource) primaryDataSource).getPoolName()).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() throws Exception {
+        getUsers(null)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.email == 'replica@example.com')]").exists());
+    }
+
+    @Test
+    void writeGoesToPrimary() throws Exception {
+        long userId = addUser("write");
+
+        assertThat(primary.queryForObject("select count(*) from users where id = ?", Long.class, userId))
+                .isEqualTo(1L);
+        assertThat(replica.queryForObject("select count(*) from users where email = 'write@example.com'",
+                Long.class)).isZero();
+    }
+
+    @Test
+    void readOnlyTransactionGoesToPrimaryWhenReplicaLags() throws Exception {
+        addUser("lag");
+        setLag(120_000L);
+
+        getUsers(null)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.email == 'lag@example.com')]").exists())
+                .andExpect(jsonPath("$[?(@.email == 'replica@example.com')]").doesNotExist());
+    }
+
+    @Test
+    void readOnlyTransactionGoesToPrimaryWhenLagIsUnknown() throws Exception {
+        setLag(null);
+
+        getUsers(null)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.email == 'replica@example.com')]").doesNotExist());
+    }
+
+    @Test
+    void readsOfRecentWriterStayOnPrimary() throws Exception {
+        long writerId = addUser("writer");
+        long otherId = addUser("other");
+        mvc.perform(post("/requests")
+                        .header(USER_ID_HEADER, writerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\": \"нужна дрель\"}"))
+                .andExpect(status().isOk());
+
+        getUsers(writerId)
+                .andExpect(jsonPath("$[?(@.email == 'writer@example.com')]").exists())
+                .andExpect(jsonPath("$[?(@.email == 'replica@example.com')]").doesNotExist());
+        getUsers(otherId)
+                .andExpect(jsonPath("$[?(@.email == 'replica@example.com')]").exists());
+    }
+
+    @Test
+    void writeAfterReadOnlyTransactionGoesToPrimary() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        List<User> users = readOnly.execute(status -> userRepository.findAll());
+        User user = readWrite.execute(status -> userRepository.save(User.builder()
+                .name("after-read")
+                .email("after-read@example.com")
+                .build()));
+
+        assertThat(users).extracting(User::getEmail).contains("replica@example.com");
+        assertThat(primary.queryForObject("select count(*) from users where id = ?", Long.class, user.getId()))
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void importOwnerIsCheckedOnPrimary() throws Exception {
+        long ownerId = addUser("importer");
+
+        mvc.perform(post("/items/import")
+                        .header(USER_ID_HEADER, ownerId)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"row\": 1, \"item\": {\"name\": \"Дрель\", \"description\": \"Простая\","
+                                + " \"available\": true}}\n"
+                                + "{\"row\": 2, \"item\": {\"name\": \"Отвёртка\", \"description\": \"Крестовая\","
+                                + " \"available\": true}}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        assertThat(primary.queryForObject("select count(*) from items where owner_id = ?", Long.class, ownerId))
+                .isEqualTo(2L);
+    }
+
+    @Test
+    void itemReadFromLaggingReplicaIsNotCached() throws Exception {
+        long ownerId = addUser("item-owner");
+        long readerId = addUser("item-reader");
+        long itemId = idOf(mvc.perform(post("/items")
+                        .header(USER_ID_HEADER, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Дрель\", \"description\": \"Простая\", \"available\": true}"))
+                .andExpect(status().isOk()));
+        replica.update("insert into users (id, name, email) values (?, 'item-owner', 'item-owner@example.com')",
+                ownerId);
+        replica.update("insert into items (id, name, description, is_available, owner_id)"
+                + " values (?, 'Дрель', 'Простая', true, ?)", itemId, ownerId);
+        setLag(1_000L);
+
+        mvc.perform(patch("/items/{itemId}", itemId)
+                        .header(USER_ID_HEADER, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Перфоратор\"}"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/items/{itemId}", itemId).header(USER_ID_HEADER, readerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Дрель"));
+
+        assertThat(cacheManager.getCache("items").get(itemId)).isNull();
+        mvc.perform(get("/items/{itemId}", itemId).header(USER_ID_HEADER, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Перфоратор"));
+    }
+
+    private long addUser(String name) throws Exception {
+        return idOf(mvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("{\"name\": \"%s\", \"email\": \"%s@example.com\"}", name, name)))
+                .andExpect(status().isOk()));
+    }
+
+    private static long idOf(ResultActions created) throws Exception {
+        String body = created.andReturn().getResponse().getContentAsString();
+        return Long.parseLong(body.replaceAll(".*?\"id\"\\s*:\\s*(\\d+).*", "$1"));
+    }
+
+    private ResultActions getUsers(Long userId) throws Exception {
+        if (userId == null) {
+            return mvc.perform(get("/users"));
+        }
+        return mvc.perform(get("/users").header(USER_ID_HEADER, userId));
+    }
+
+    private void setLag(Long lagMs) {
+        replica.update("update replica_lag set lag_ms = ?", lagMs);
+        lagMonitor.check();
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.export;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.H2Test;
+import ru.practicum.shareit.user.TestUsers;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A refused export is answered like any other error, as JSON and without the attachment headers of the file.
+ */
+@H2Test
+@AutoConfigureMockMvc
+class ExportTest {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final long UNKNOWN_USER_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void exportOfUnknownUserIsNotFound() throws Exception {
+        for (String path : new String[]{"/items/export", "/bookings/export", "/bookings/owner/export"}) {
+            mvc.perform(get(path).param("format", "csv").header(USER_ID_HEADER, UNKNOWN_USER_ID))
+                    .andExpect(status().isNotFound())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION));
+        }
+    }
+
+    @Test
+    void exportOfKnownUserIsAttachment() throws Exception {
+        long ownerId = TestUsers.add(userRepository, "owner").getId();
+
+        mvc.perform(get("/items/export").param("format", "csv").header(USER_ID_HEADER, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"items.csv\""))
+                .andExpect(content().string("id,name,description,available,requestId\r\n"));
+    }
+}
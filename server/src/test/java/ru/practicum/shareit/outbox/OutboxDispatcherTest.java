@@ -0,0 +1,212 @@
+package ru.practicum.shareit.outbox;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.H2Test;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Events of a test topic are inserted by hand and dispatched by calling the dispatcher directly; the scheduled
+ * poll is off in every test context. The payload of an event is its aggregate id.
+ * Consumers run while no connection is taken from the pool, so a slow one holds neither a connection nor locks.
+ */
+@H2Test
+@TestPropertySource(properties = {
+        "shareit.outbox.max-attempts=3",
+        "shareit.outbox.consumer-timeout-ms=500"
+})
+class OutboxDispatcherTest {
+    private static final String TOPIC = "outbox-test";
+    private static final String BLOCKING_TOPIC = "outbox-test-blocking";
+    private static final String UNKNOWN_TOPIC = "outbox-test-unknown";
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RecordingConsumer consumer;
+    @Autowired
+    private BlockingConsumer blockingConsumer;
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from outbox_events where topic in (?, ?, ?)", TOPIC, BLOCKING_TOPIC,
+                UNKNOWN_TOPIC);
+        consumer.received.clear();
+        blockingConsumer.reset();
+    }
+
+    @Test
+    void laterEventsWaitBehindExhaustedEvent() {
+        insert(-30L, TOPIC, 1L, 3);
+        insert(-20L, TOPIC, 1L, 0);
+        insert(-10L, TOPIC, 2L, 0);
+
+        dispatcher.dispatch();
+
+        assertThat(consumer.received).containsExactly(2L);
+        assertThat(remaining(TOPIC)).containsExactly(-30L, -20L);
+    }
+
+    @Test
+    void eventOfTopicWithoutConsumerStays() {
+        insert(-60L, UNKNOWN_TOPIC, 4L, 0);
+        insert(-50L, TOPIC, 4L, 0);
+
+        dispatcher.dispatch();
+
+        assertThat(consumer.received).containsExactly(4L);
+        assertThat(remaining(UNKNOWN_TOPIC)).containsExactly(-60L);
+        assertThat(remaining(TOPIC)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("select attempts from outbox_events where id = -60", Integer.class))
+                .isZero();
+    }
+
+    @Test
+    void timedOutAggregateIsNotDeliveredAgainWhileItsTaskRuns() throws Exception {
+        insert(-40L, BLOCKING_TOPIC, 3L, 0);
+
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+
+        assertThat(blockingConsumer.calls).hasValue(1);
+        blockingConsumer.release.countDown();
+        for (int i = 0; i < 50 && !remaining(BLOCKING_TOPIC).isEmpty(); i++) {
+            Thread.sleep(100);
+            dispatcher.dispatch();
+        }
+        assertThat(remaining(BLOCKING_TOPIC)).isEmpty();
+        assertThat(blockingConsumer.calls).hasValue(2);
+        assertThat(blockingConsumer.maxRunning).hasValue(1);
+    }
+
+    @Test
+    void consumerRunsWithoutHoldingConnection() throws Exception {
+        insert(-70L, BLOCKING_TOPIC, 5L, 0);
+        Thread dispatching = new Thread(dispatcher::dispatch);
+        dispatching.start();
+        try {
+            assertThat(blockingConsumer.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections())
+                    .isZero();
+        } finally {
+            blockingConsumer.release.countDown();
+            dispatching.join();
+        }
+    }
+
+    private void insert(long id, String topic, long aggregateId, int attempts) {
+        jdbcTemplate.update("insert into outbox_events (id, topic, aggregate_id, payload, created, attempts)"
+                        + " values (?, ?, ?, ?, ?, ?)", id, topic, aggregateId, String.valueOf(aggregateId),
+                Timestamp.valueOf(LocalDateTime.now()), attempts);
+    }
+
+    private List<Long> remaining(String topic) {
+        return jdbcTemplate.queryForList("select id from outbox_events where topic = ? order by id", Long.class,
+                topic);
+    }
+
+    static class RecordingConsumer implements OutboxConsumer<Long> {
+        final List<Long> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String getTopic() {
+            return TOPIC;
+        }
+
+        @Override
+        public Class<Long> getPayloadType() {
+            return Long.class;
+        }
+
+        @Override
+        public void consume(Long payload) {
+            received.add(payload);
+        }
+    }
+
+    /**
+     * Blocks until released and ignores interrupts, like a consumer stuck in a call that cannot be interrupted.
+     */
+    static class BlockingConsumer implements OutboxConsumer<Long> {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        volatile CountDownLatch started;
+        volatile CountDownLatch release;
+
+        void reset() {
+            calls.set(0);
+            maxRunning.set(0);
+            started = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+
+        @Override
+        public String getTopic() {
+            return BLOCKING_TOPIC;
+        }
+
+        @Override
+        public Class<Long> getPayloadType() {
+            return Long.class;
+        }
+
+        @Override
+        public void consume(Long payload) {
+            calls.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            boolean interrupted = false;
+            CountDownLatch released = release;
+            try {
+                while (true) {
+                    try {
+                        released.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                running.decrementAndGet();
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class Consumers {
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+
+        @Bean
+        BlockingConsumer blockingConsumer() {
+            return new BlockingConsumer();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.H2Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A user deleted through another instance: its row is gone, but this instance still has it in the users cache.
+ * Inserts that reference the user are answered with 404 instead of 500; other violations are not.
+ */
+@H2Test
+@AutoConfigureMockMvc
+class DeletedUserTest {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String ITEM = "{\"name\": \"Дрель\", \"description\": \"Простая дрель\", \"available\": true}";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ItemService itemService;
+
+    private long userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userId = TestUsers.add(userRepository, "deleted").getId();
+        mvc.perform(get("/items").header(USER_ID_HEADER, userId)).andExpect(status().isOk());
+        jdbcTemplate.update("delete from users where id = ?", userId);
+    }
+
+    @Test
+    void otherViolationOfExistingOwnerIsRethrown() {
+        long ownerId = TestUsers.add(userRepository, "owner").getId();
+        ItemDto withoutName = ItemDto.builder().description("Простая дрель").available(true).build();
+
+        assertThatThrownBy(() -> itemService.addItem(ownerId, withoutName))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void addItemOfDeletedOwnerIsNotFound() throws Exception {
+        mvc.perform(post("/items")
+                        .header(USER_ID_HEADER, userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ITEM))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void addItemsOfDeletedOwnerIsNotFound() throws Exception {
+        mvc.perform(post("/items/batch")
+                        .header(USER_ID_HEADER, userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + ITEM + ", " + ITEM + "]"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void importOfDeletedOwnerIsNotFound() throws Exception {
+        mvc.perform(post("/items/import")
+                        .header(USER_ID_HEADER, userId)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"row\": 1, \"item\": " + ITEM + "}\n"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void addRequestOfDeletedUserIsNotFound() throws Exception {
+        mvc.perform(post("/requests")
+                        .header(USER_ID_HEADER, userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\": \"нужна дрель\"}"))
+                .andExpect(status().isNotFound());
+    }
+}
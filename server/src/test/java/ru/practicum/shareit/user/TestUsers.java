@@ -0,0 +1,21 @@
+package ru.practicum.shareit.user;
+
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.UUID;
+
+/**
+ * Users for tests that share a database with other tests and earlier runs: every email is new.
+ */
+public final class TestUsers {
+    private TestUsers() {
+    }
+
+    public static User add(UserRepository userRepository, String name) {
+        return userRepository.save(User.builder()
+                .name(name)
+                .email(name + "-" + UUID.randomUUID() + "@example.com")
+                .build());
+    }
+}